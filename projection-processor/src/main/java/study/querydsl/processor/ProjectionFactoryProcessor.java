@@ -0,0 +1,200 @@
+package study.querydsl.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code @QueryProjection} 생성자가 있는 클래스마다 {@code <클래스명>Projection} 을 만든다.
+ * <p>
+ * Querydsl 이 만드는 Q 타입(ConstructorExpression)은 행마다 리플렉션으로 생성자를 호출하지만,
+ * 여기서 만드는 FactoryExpression 은 {@code newInstance} 안에서 생성자를 직접 호출한다.
+ * 생성자 파라미터는 Q 타입과 같은 순서의 Expression 으로 받는다.
+ */
+@SupportedAnnotationTypes(ProjectionFactoryProcessor.QUERY_PROJECTION)
+public class ProjectionFactoryProcessor extends AbstractProcessor {
+
+    static final String QUERY_PROJECTION = "com.querydsl.core.annotations.QueryProjection";
+
+    private static final String SUFFIX = "Projection";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, List<ExecutableElement>> constructors = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CONSTRUCTOR) {
+                    constructors.computeIfAbsent((TypeElement) element.getEnclosingElement(), k -> new ArrayList<>())
+                            .add((ExecutableElement) element);
+                }
+            }
+        }
+
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : constructors.entrySet()) {
+            try {
+                write(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Failed to generate projection: " + e.getMessage(), entry.getKey());
+            }
+        }
+        // Querydsl 의 프로세서도 같은 애노테이션을 처리해야 하므로 가져가지 않는다.
+        return false;
+    }
+
+    private void write(TypeElement type, List<ExecutableElement> constructors) throws IOException {
+        String packageName = packageOf(type).getQualifiedName().toString();
+        String typeName = type.getQualifiedName().toString();
+        String simpleName = projectionName(type);
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("import com.querydsl.core.types.Expression;\n")
+                .append("import com.querydsl.core.types.FactoryExpressionBase;\n")
+                .append("import com.querydsl.core.types.Visitor;\n\n")
+                .append("import java.util.Arrays;\n")
+                .append("import java.util.Collections;\n")
+                .append("import java.util.List;\n\n")
+                .append("/**\n")
+                .append(" * Reflection-free factory expression for ").append(type.getSimpleName()).append(".\n")
+                .append(" * Generated by ").append(getClass().getSimpleName()).append(", do not edit.\n")
+                .append(" */\n")
+                .append("public class ").append(simpleName)
+                .append(" extends FactoryExpressionBase<").append(typeName).append("> {\n\n")
+                .append("    private static final long serialVersionUID = 1L;\n\n")
+                .append("    private final int constructor;\n\n")
+                .append("    private final List<Expression<?>> args;\n");
+
+        for (int c = 0; c < constructors.size(); c++) {
+            List<? extends VariableElement> parameters = constructors.get(c).getParameters();
+            src.append("\n    public ").append(simpleName).append("(");
+            for (int i = 0; i < parameters.size(); i++) {
+                VariableElement parameter = parameters.get(i);
+                src.append(i > 0 ? ", " : "")
+                        .append("Expression<? extends ").append(boxed(parameter.asType())).append("> ")
+                        .append(parameter.getSimpleName());
+            }
+            src.append(") {\n")
+                    .append("        super(").append(typeName).append(".class);\n")
+                    .append("        this.constructor = ").append(c).append(";\n")
+                    .append("        this.args = Collections.unmodifiableList(Arrays.<Expression<?>>asList(");
+            for (int i = 0; i < parameters.size(); i++) {
+                src.append(i > 0 ? ", " : "").append(parameters.get(i).getSimpleName());
+            }
+            src.append("));\n")
+                    .append("    }\n");
+        }
+
+        src.append("\n    @Override\n")
+                .append("    public List<Expression<?>> getArgs() {\n")
+                .append("        return args;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    @SuppressWarnings(\"unchecked\")\n")
+                .append("    public ").append(typeName).append(" newInstance(Object... a) {\n")
+                .append("        switch (constructor) {\n");
+        for (int c = 0; c < constructors.size(); c++) {
+            List<? extends VariableElement> parameters = constructors.get(c).getParameters();
+            src.append("            case ").append(c).append(":\n")
+                    .append("                return new ").append(typeName).append("(");
+            for (int i = 0; i < parameters.size(); i++) {
+                src.append(i > 0 ? ", " : "").append(argument(parameters.get(i).asType(), i));
+            }
+            src.append(");\n");
+        }
+        src.append("            default:\n")
+                .append("                throw new IllegalStateException(\"Unknown constructor \" + constructor);\n")
+                .append("        }\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public <R, C> R accept(Visitor<R, C> v, C context) {\n")
+                .append("        return v.visit(this, context);\n")
+                .append("    }\n")
+                .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(src.toString());
+        }
+    }
+
+    /**
+     * 기본형 파라미터는 null(예: outer join)일 때 기본값을 넘긴다.
+     */
+    private String argument(TypeMirror type, int index) {
+        String value = "a[" + index + "]";
+        if (!type.getKind().isPrimitive()) {
+            return "(" + type + ") " + value;
+        }
+        return value + " != null ? (" + boxed(type) + ") " + value + " : " + defaultValue(type.getKind());
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private String defaultValue(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "'\\0'";
+            case BYTE:
+                return "(byte) 0";
+            case SHORT:
+                return "(short) 0";
+            case LONG:
+                return "0L";
+            case FLOAT:
+                return "0F";
+            case DOUBLE:
+                return "0D";
+            default:
+                return "0";
+        }
+    }
+
+    private String projectionName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    private PackageElement packageOf(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+}
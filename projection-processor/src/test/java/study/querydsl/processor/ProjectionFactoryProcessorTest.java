@@ -0,0 +1,181 @@
+package study.querydsl.processor;
+
+import com.google.common.io.ByteStreams;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.CompilationSubject;
+import com.google.testing.compile.JavaFileObjects;
+import com.querydsl.apt.QuerydslAnnotationProcessor;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.testing.compile.Compiler.javac;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectionFactoryProcessorTest {
+
+    private static final String CLASS_OUTPUT = "/CLASS_OUTPUT/";
+
+    /**
+     * 기본형 파라미터와 @QueryProjection 생성자 두 개를 가진 DTO. toString 으로 어느 생성자가 어떤 값을 받았는지 본다.
+     */
+    private static final JavaFileObject ROW = JavaFileObjects.forSourceLines("test.Row",
+            "package test;",
+            "",
+            "import com.querydsl.core.annotations.QueryProjection;",
+            "",
+            "public class Row {",
+            "    private final String constructor;",
+            "    private final String name;",
+            "    private final int count;",
+            "    private final long total;",
+            "    private final boolean active;",
+            "    private final double ratio;",
+            "    private final char grade;",
+            "",
+            "    @QueryProjection",
+            "    public Row(String name, int count) {",
+            "        this(\"two\", name, count, -1L, true, -1D, 'x');",
+            "    }",
+            "",
+            "    @QueryProjection",
+            "    public Row(String name, int count, long total, boolean active, double ratio, char grade) {",
+            "        this(\"six\", name, count, total, active, ratio, grade);",
+            "    }",
+            "",
+            "    private Row(String constructor, String name, int count, long total, boolean active, double ratio,",
+            "                char grade) {",
+            "        this.constructor = constructor;",
+            "        this.name = name;",
+            "        this.count = count;",
+            "        this.total = total;",
+            "        this.active = active;",
+            "        this.ratio = ratio;",
+            "        this.grade = grade;",
+            "    }",
+            "",
+            "    @Override",
+            "    public String toString() {",
+            "        return constructor + \":\" + name + \",\" + count + \",\" + total + \",\" + active + \",\" + ratio",
+            "                + \",\" + (int) grade;",
+            "    }",
+            "}");
+
+    private static final JavaFileObject OUTER = JavaFileObjects.forSourceLines("test.Outer",
+            "package test;",
+            "",
+            "import com.querydsl.core.annotations.QueryProjection;",
+            "",
+            "public class Outer {",
+            "    public static class Inner {",
+            "        @QueryProjection",
+            "        public Inner(Integer value) {",
+            "        }",
+            "    }",
+            "}");
+
+    @Test
+    @DisplayName("One projection per class switches between its @QueryProjection constructors")
+    void test1() throws Exception {
+        Compilation compilation = javac().withProcessors(new ProjectionFactoryProcessor()).compile(ROW, OUTER);
+
+        CompilationSubject.assertThat(compilation).succeededWithoutWarnings();
+        CompilationSubject.assertThat(compilation).generatedSourceFile("test.RowProjection")
+                .contentsAsUtf8String().contains("switch (constructor)");
+        CompilationSubject.assertThat(compilation).generatedSourceFile("test.Outer_InnerProjection")
+                .contentsAsUtf8String().contains("return new test.Outer.Inner((java.lang.Integer) a[0]);");
+    }
+
+    @Test
+    @DisplayName("Each projection constructor calls the matching DTO constructor")
+    void test2() throws Exception {
+        ClassLoader classLoader = load(javac().withProcessors(new ProjectionFactoryProcessor()).compile(ROW));
+
+        FactoryExpression<?> two = projection(classLoader, "test.RowProjection", 2);
+        FactoryExpression<?> six = projection(classLoader, "test.RowProjection", 6);
+
+        assertThat(two.getArgs()).hasSize(2);
+        assertThat(two.newInstance("a", 1)).hasToString("two:a,1,-1,true,-1.0,120");
+        assertThat(six.getArgs()).hasSize(6);
+        assertThat(six.newInstance("b", 2, 3L, true, 0.5D, 'y')).hasToString("six:b,2,3,true,0.5,121");
+    }
+
+    @Test
+    @DisplayName("Null primitive arguments become the primitive default value")
+    void test3() throws Exception {
+        ClassLoader classLoader = load(javac().withProcessors(new ProjectionFactoryProcessor()).compile(ROW));
+
+        FactoryExpression<?> six = projection(classLoader, "test.RowProjection", 6);
+
+        assertThat(six.newInstance(null, null, null, null, null, null)).hasToString("six:null,0,0,false,0.0,0");
+    }
+
+    @Test
+    @DisplayName("Projection builds the same instance as the Querydsl Q type")
+    void test4() throws Exception {
+        ClassLoader classLoader = load(javac()
+                .withProcessors(new QuerydslAnnotationProcessor(), new ProjectionFactoryProcessor())
+                .compile(ROW));
+
+        for (int arity : new int[]{2, 6}) {
+            FactoryExpression<?> projection = projection(classLoader, "test.RowProjection", arity);
+            FactoryExpression<?> queryType = projection(classLoader, "test.QRow", arity);
+            Object[] values = Arrays.copyOf(new Object[]{"c", 4, 5L, false, 1.5D, 'z'}, arity);
+
+            assertThat(projection.getType()).isEqualTo(queryType.getType());
+            assertThat(projection.getArgs()).isEqualTo(queryType.getArgs());
+            assertThat(projection.newInstance(values)).hasToString(queryType.newInstance(values).toString());
+        }
+    }
+
+    /**
+     * 인자마다 이름이 다른 경로를 넘겨 args 순서를 비교할 수 있게 한다.
+     */
+    private static FactoryExpression<?> projection(ClassLoader classLoader, String className, int arity)
+            throws ReflectiveOperationException {
+        Class<?>[] parameterTypes = new Class<?>[arity];
+        Object[] args = new Object[arity];
+        for (int i = 0; i < arity; i++) {
+            parameterTypes[i] = Expression.class;
+            args[i] = Expressions.path(Object.class, "arg" + i);
+        }
+        return (FactoryExpression<?>) classLoader.loadClass(className).getConstructor(parameterTypes).newInstance(args);
+    }
+
+    /**
+     * 컴파일 결과(메모리의 class 파일)를 읽는 클래스 로더. Querydsl 타입은 테스트 클래스패스의 것을 함께 쓴다.
+     */
+    private static ClassLoader load(Compilation compilation) throws IOException {
+        CompilationSubject.assertThat(compilation).succeeded();
+        Map<String, byte[]> classes = new HashMap<>();
+        for (JavaFileObject file : compilation.generatedFiles()) {
+            if (file.getKind() == JavaFileObject.Kind.CLASS) {
+                String path = file.toUri().getPath();
+                String name = path.substring(path.indexOf(CLASS_OUTPUT) + CLASS_OUTPUT.length(),
+                        path.length() - JavaFileObject.Kind.CLASS.extension.length()).replace('/', '.');
+                try (InputStream in = file.openInputStream()) {
+                    classes.put(name, ByteStreams.toByteArray(in));
+                }
+            }
+        }
+        return new ClassLoader(ProjectionFactoryProcessorTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.springframework.context.ApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 게이트웨이처럼 조건 N 개를 한 번에 처리할 때, 조건마다 쿼리를 하나씩 보내는 것과 searchBatch 한 번의 비교.
+ * <p>
+ * sequential 은 Hibernate 쿼리 캐시를 타므로 반복 실행에서는 최선의 경우다.
+ * 캐시 없이 매번 DB 를 다녀오는 경우는 같은 조건을 Querydsl 로 직접 실행하는 sequentialUncached 로 본다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class BatchSearchBenchmark extends JpaBenchmarkSupport {
+
+    @Param({"20", "50"})
+    public int conditionCount;
+
+    private MemberRepository memberRepository;
+    private JPAQueryFactory queryFactory;
+    private List<MemberSearchCondition> conditions;
+
+    @Override
+    protected void init(ApplicationContext context) {
+        memberRepository = context.getBean(MemberRepository.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+
+        conditions = new ArrayList<>(conditionCount);
+        for (int i = 0; i < conditionCount; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if (i % 5 == 0) {
+                condition.setUsername("member" + i * 7);
+            } else {
+                condition.setTeamName("team" + i % TEAM_COUNT);
+                condition.setAgeGoe(i % 90);
+                condition.setAgeLoe(i % 90 + 10);
+            }
+            conditions.add(condition);
+        }
+    }
+
+    @Benchmark
+    public List<List<MemberTeamDto>> batch() {
+        return memberRepository.searchBatch(conditions);
+    }
+
+    @Benchmark
+    public List<List<MemberTeamDto>> sequential() {
+        List<List<MemberTeamDto>> result = new ArrayList<>(conditions.size());
+        for (MemberSearchCondition condition : conditions) {
+            result.add(memberRepository.search(condition));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<List<MemberTeamDto>> sequentialUncached() {
+        List<List<MemberTeamDto>> result = new ArrayList<>(conditions.size());
+        for (MemberSearchCondition condition : conditions) {
+            result.add(queryFactory.select(new QMemberTeamDto(
+                            member.id, member.username, member.age, team.id, team.name))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(hasText(condition.getUsername()) ? member.username.eq(condition.getUsername()) : null,
+                            hasText(condition.getTeamName()) ? team.name.eq(condition.getTeamName()) : null,
+                            condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+                            condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null)
+                    .fetch());
+        }
+        return result;
+    }
+}
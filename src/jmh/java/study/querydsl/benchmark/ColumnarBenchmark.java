@@ -0,0 +1,71 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.springframework.context.ApplicationContext;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberColumnsCodec;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 같은 검색 결과를 Jackson(JSON)과 application/x-member-columnar 로 직렬화하는 비용 비교.
+ * 페이로드 크기는 trial 시작 시 한 번 출력한다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class ColumnarBenchmark extends JpaBenchmarkSupport {
+
+    private MemberJpaRepository memberJpaRepository;
+    private ObjectMapper objectMapper;
+    private MemberSearchCondition condition;
+    private List<MemberTeamDto> dtos;
+    private MemberColumns columns;
+
+    @Override
+    protected void init(ApplicationContext context) {
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        condition = new MemberSearchCondition();
+        dtos = memberJpaRepository.search(condition);
+        columns = memberJpaRepository.searchColumns(condition);
+
+        try {
+            System.out.printf("%n[payload] rows=%d json=%d bytes columnar=%d bytes%n",
+                    dtos.size(), jackson().length, columnar().length);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public byte[] jackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] columnar() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnsCodec.write(columns, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] searchAndJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(memberJpaRepository.search(condition));
+    }
+
+    @Benchmark
+    public byte[] searchAndColumnar() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnsCodec.write(memberJpaRepository.searchColumns(condition), out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberSearchQueryCache;
+
+import java.util.List;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class DeferredJoinBenchmark extends JpaBenchmarkSupport {
+
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * 전체 결과 중 페이지가 시작하는 위치(%). dataSize 가 달라도 항상 내용이 있는 페이지를 읽는다.
+     */
+    @Param({"0", "50", "90"})
+    public int depth;
+
+    private MemberSearchQueryCache searchQueryCache;
+    private MemberSearchCondition condition;
+    private PageRequest pageRequest;
+
+    @Override
+    protected void init(ApplicationContext context) {
+        searchQueryCache = context.getBean(MemberSearchQueryCache.class);
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(0);
+        int page = dataSize * depth / 100 / PAGE_SIZE;
+        pageRequest = PageRequest.of(page, PAGE_SIZE, Sort.by("username"));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> offset() {
+        return readOnlyTransaction.execute(status -> searchQueryCache.fetch(condition, pageRequest));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> deferredJoin() {
+        return readOnlyTransaction.execute(status -> searchQueryCache.fetchDeferred(condition, pageRequest));
+    }
+}
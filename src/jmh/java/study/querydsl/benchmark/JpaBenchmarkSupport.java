@@ -0,0 +1,96 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 인메모리 H2 위에 JPA 계층을 띄우고 dataSize 만큼 회원을 넣어 두는 벤치마크 공통 상태
+ * <p>
+ * dataSize 는 {@code java -jar build/libs/querydsl-0.0.1-SNAPSHOT-jmh.jar -p dataSize=100000} 처럼 바꿀 수 있다.
+ */
+@State(Scope.Benchmark)
+public abstract class JpaBenchmarkSupport {
+
+    protected static final int TEAM_COUNT = 10;
+
+    @Param({"1000", "10000"})
+    public int dataSize;
+
+    protected ConfigurableApplicationContext context;
+    protected TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>(Arrays.asList("--spring.profiles.active=bench",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--decorator.datasource.enabled=false",
+                "--logging.level.root=warn"));
+        args.addAll(properties());
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> seed(context.getBean(EntityManager.class)));
+        init(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    protected abstract void init(ApplicationContext context);
+
+    /**
+     * 벤치마크마다 덧붙일 설정. {@code --name=value} 형식이다.
+     */
+    protected List<String> properties() {
+        return Collections.emptyList();
+    }
+
+    private void seed(EntityManager em) {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            teams.add(team);
+        }
+
+        for (int i = 0; i < dataSize; i++) {
+            em.persist(new Member("member" + i, i % 100, teams.get(i % TEAM_COUNT)));
+            if (i % 1000 == 999) {
+                em.flush();
+                em.clear();
+                teams.replaceAll(team -> em.getReference(Team.class, team.getId()));
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 페이징 방식별 비교. 모두 같은 조건에서 재도록 Hibernate 쿼리 캐시와 count 캐시를 끄고,
+ * 각 호출을 같은 읽기 전용 트랜잭션 템플릿 안에서 실행한다.
+ * applyPaginationConcurrently 는 count 쿼리를 content 쿼리와 항상 동시에 시작하도록 count-delay 를 0 으로 두고
+ * 같은 조건의 applyPagination2(순차 실행)와 비교한다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class PaginationBenchmark extends JpaBenchmarkSupport {
+
+    private MemberRepository memberRepository;
+    private MemberTestRepository memberTestRepository;
+    private MemberSearchCondition condition;
+    private PageRequest pageRequest;
+
+    @Override
+    protected List<String> properties() {
+        return Arrays.asList("--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--querydsl.count-cache.maximum-size=0",
+                "--querydsl.pagination.count-delay=0ms");
+    }
+
+    @Override
+    protected void init(ApplicationContext context) {
+        memberRepository = context.getBean(MemberRepository.class);
+        memberTestRepository = context.getBean(MemberTestRepository.class);
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        pageRequest = PageRequest.of(2, 20);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return readOnlyTransaction.execute(status -> memberRepository.searchPageSimple(condition, pageRequest));
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return readOnlyTransaction.execute(status -> memberRepository.searchPageComplex(condition, pageRequest));
+    }
+
+    @Benchmark
+    public Page<Member> applyPagination2() {
+        return readOnlyTransaction.execute(status -> memberTestRepository.applyPagination2(condition, pageRequest));
+    }
+
+    @Benchmark
+    public Page<Member> applyPaginationConcurrently() {
+        return readOnlyTransaction.execute(status -> memberTestRepository.applyPaginationConcurrently(condition, pageRequest));
+    }
+}
@@ -0,0 +1,88 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.springframework.context.ApplicationContext;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberDtoProjection;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class ProjectionBenchmark extends JpaBenchmarkSupport {
+
+    private JPAQueryFactory queryFactory;
+
+    @Override
+    protected void init(ApplicationContext context) {
+        queryFactory = context.getBean(JPAQueryFactory.class);
+    }
+
+    @Benchmark
+    public List<MemberDto> bean() {
+        return readOnlyTransaction.execute(status -> queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> fields() {
+        return readOnlyTransaction.execute(status -> queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor() {
+        return readOnlyTransaction.execute(status -> queryFactory
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() {
+        return readOnlyTransaction.execute(status -> queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> generatedProjection() {
+        return readOnlyTransaction.execute(status -> queryFactory
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> queryProjectionWithTeam() {
+        return readOnlyTransaction.execute(status -> queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> generatedProjectionWithTeam() {
+        return readOnlyTransaction.execute(status -> queryFactory
+                .select(new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch());
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.springframework.context.ApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 컴파일된 JPQL 을 재사용하는 search 와 매번 BooleanBuilder 로 쿼리를 만드는 searchByBuilder 의 비교.
+ * 둘 다 DB 를 다녀오도록 Hibernate 쿼리 캐시는 끈다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+public class SearchBenchmark extends JpaBenchmarkSupport {
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchCondition condition;
+
+    @Override
+    protected List<String> properties() {
+        return Collections.singletonList("--spring.jpa.properties.hibernate.cache.use_query_cache=false");
+    }
+
+    @Override
+    protected void init(ApplicationContext context) {
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+}
@@ -1,17 +1,40 @@
 package study.querydsl;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.querydsl.config.BufferingStartupInitializer;
+import study.querydsl.repository.TeamStatsReconciler;
+import study.querydsl.repository.support.DataChangeStatementInspector;
+import study.querydsl.repository.support.FlushTracker;
 
 import javax.persistence.EntityManager;
 
+@EnableScheduling
 @SpringBootApplication
 public class QuerydslApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(QuerydslApplication.class, args);
+        SpringApplication application = new SpringApplication(QuerydslApplication.class);
+        // fast 프로필이면 기동 단계별 소요 시간을 기록한다.
+        application.addInitializers(new BufferingStartupInitializer());
+        application.run(args);
+    }
+
+    /**
+     * lazy-initialization(fast 프로필)에서도 미리 만들어야 하는 빈. @Scheduled 는 빈이 만들어질 때 등록된다.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(TeamStatsReconciler.class);
     }
 
     @Bean
@@ -19,4 +42,22 @@ public class QuerydslApplication {
         return new JPAQueryFactory(entityManager);
     }
 
+    @Bean
+    HibernatePropertiesCustomizer dataChangeStatementInspector(ApplicationEventPublisher publisher) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new DataChangeStatementInspector(publisher));
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, FlushTracker.class.getName());
+        };
+    }
+
+    /**
+     * 검색 응답은 강한 ETag 를 갖는데, Tomcat 은 기본적으로 강한 ETag 가 있는 응답을 압축하지 않는다.
+     * ETag 에 Accept-Encoding 이 포함되어 있으므로 압축해도 된다.
+     */
+    @Bean
+    WebServerFactoryCustomizer<TomcatServletWebServerFactory> compressStrongETagResponses() {
+        return factory -> factory.addConnectorCustomizers(
+                connector -> connector.setProperty("noCompressionStrongETag", "false"));
+    }
+
 }
@@ -0,0 +1,24 @@
+package study.querydsl.config;
+
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Profiles;
+
+/**
+ * fast 프로필이면 기동 단계(빈 생성 등)를 {@link BufferingApplicationStartup} 에 기록한다.
+ * 기록은 {@link StartupTimelineReport} 와 /actuator/startup 에서 본다.
+ * <p>
+ * 활성 프로필을 알아야 하므로 SpringApplication 이 아니라 컨텍스트에 설정한다. 컨텍스트를 만들기 전 단계는 기록되지 않는다.
+ */
+public class BufferingStartupInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static final int STARTUP_STEPS = 10_000;
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        if (context.getEnvironment().acceptsProfiles(Profiles.of("fast"))) {
+            context.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.config;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import study.querydsl.repository.support.DataChangedEvent;
+import study.querydsl.repository.support.TransactionCallbacks;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 쓰기 SQL 이 실행되면 현재 스레드에 기록하고, 요청이 끝나면 지운다.
+ * <p>
+ * 요청 밖의 스레드(비동기 실행기, 스케줄러, warm-up, import)는 지워 줄 필터가 없으므로
+ * 쓰기가 일어난 트랜잭션이 끝날 때 지운다. 트랜잭션 밖의 쓰기는 이미 커밋되었으므로 기록하지 않는다.
+ */
+public class ReplicaLagTracker extends OncePerRequestFilter {
+
+    @EventListener
+    public void onDataChanged(DataChangedEvent event) {
+        ReplicaRoutingContext.markWrite();
+        if (RequestContextHolder.getRequestAttributes() == null
+                && !TransactionCallbacks.afterCompletionOnce(this, ReplicaRoutingContext::clear)) {
+            ReplicaRoutingContext.clear();
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReplicaRoutingContext.clear();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingContext.clear();
+        }
+    }
+}
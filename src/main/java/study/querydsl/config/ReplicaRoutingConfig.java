@@ -0,0 +1,63 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * querydsl.datasource.routing.enabled=true 일 때 spring.datasource 를 primary 로,
+ * querydsl.datasource.routing.replicas 를 읽기 전용 replica 로 사용한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class ReplicaRoutingConfig {
+
+    /**
+     * 라우팅을 켜지 않았을 때와 같은 spring.datasource.hikari.* 로 primary 풀을 설정한다.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                               ReplicaRoutingProperties routing) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < routing.getReplicas().size(); i++) {
+            ReplicaRoutingProperties.Replica replica = routing.getReplicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setDriverClassName(properties.determineDriverClassName());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            replicas.add(dataSource);
+        }
+
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, routing.getReplicaLagWindow());
+    }
+
+    @Bean
+    public ReplicaLagTracker replicaLagTracker() {
+        return new ReplicaLagTracker();
+    }
+}
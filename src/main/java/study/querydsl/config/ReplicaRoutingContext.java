@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import java.time.Duration;
+
+/**
+ * 현재 스레드(요청, 요청 밖에서는 트랜잭션)에서 마지막으로 쓰기가 일어난 시각. {@link ReplicaLagTracker} 가 기록하고 지운다.
+ */
+public abstract class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    public static void markWrite() {
+        LAST_WRITE.set(System.nanoTime());
+    }
+
+    /**
+     * 현재 요청에서 쓰기가 있었는지
+     */
+    public static boolean hasWritten() {
+        return LAST_WRITE.get() != null;
+    }
+
+    public static boolean isWithinLagWindow(Duration window) {
+        Long lastWrite = LAST_WRITE.get();
+        return lastWrite != null && System.nanoTime() - lastWrite < window.toNanos();
+    }
+
+    public static void clear() {
+        LAST_WRITE.remove();
+    }
+}
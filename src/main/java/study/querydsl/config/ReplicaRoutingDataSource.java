@@ -0,0 +1,86 @@
+package study.querydsl.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션은 replica 중 하나로(라운드 로빈), 나머지는 primary 로 보낸다.
+ * <p>
+ * 트랜잭션의 readOnly 여부는 트랜잭션이 시작된 뒤에야 알 수 있으므로
+ * {@link LazyConnectionDataSourceProxy} 로 감싸 첫 SQL 실행 시점에 커넥션을 고른다.
+ * 같은 스레드에서 쓰기가 있었다면 replicaLagWindow 동안은 읽기도 primary 로 보낸다.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    private final Router router;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration replicaLagWindow) {
+        this.router = new Router(primary, replicas, replicaLagWindow);
+        this.router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 현재 스레드가 지금 커넥션을 얻는다면 사용할 대상 (primary, replica-0, ...)
+     */
+    public String currentTarget() {
+        return router.determineCurrentLookupKey();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : router.targets) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+
+    private static class Router extends AbstractRoutingDataSource {
+
+        private final List<DataSource> targets = new ArrayList<>();
+        private final List<String> replicaKeys = new ArrayList<>();
+        private final Duration replicaLagWindow;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private Router(DataSource primary, List<DataSource> replicas, Duration replicaLagWindow) {
+            this.replicaLagWindow = replicaLagWindow;
+
+            Map<Object, Object> lookup = new HashMap<>();
+            lookup.put(PRIMARY, primary);
+            targets.add(primary);
+            for (int i = 0; i < replicas.size(); i++) {
+                String key = "replica-" + i;
+                lookup.put(key, replicas.get(i));
+                replicaKeys.add(key);
+                targets.add(replicas.get(i));
+            }
+            setTargetDataSources(lookup);
+            setDefaultTargetDataSource(primary);
+        }
+
+        @Override
+        protected String determineCurrentLookupKey() {
+            if (replicaKeys.isEmpty()
+                    || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    || ReplicaRoutingContext.isWithinLagWindow(replicaLagWindow)) {
+                return PRIMARY;
+            }
+            return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+        }
+    }
+}
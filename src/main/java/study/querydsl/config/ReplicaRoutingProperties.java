@@ -0,0 +1,33 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("querydsl.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled;
+
+    /**
+     * 쓰기 직후 이 시간 동안은 같은 스레드(요청)의 읽기도 primary 로 보낸다.
+     */
+    private Duration replicaLagWindow = Duration.ofSeconds(2);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
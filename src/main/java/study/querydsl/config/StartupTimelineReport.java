@@ -0,0 +1,81 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 기동이 끝나면 빈 생성에 오래 걸린 순서대로 로그를 남긴다. 시간은 그 빈이 만들면서 함께 만든 의존 빈을 포함한다.
+ * <p>
+ * {@link BufferingApplicationStartup} 으로 기동했을 때만({@link BufferingStartupInitializer}, fast 프로필) 동작한다.
+ * 전체 타임라인은 /actuator/startup 으로 볼 수 있다.
+ */
+@Slf4j
+@Component
+public class StartupTimelineReport {
+
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+
+    private final ApplicationStartup applicationStartup;
+    private final int top;
+
+    public StartupTimelineReport(ApplicationStartup applicationStartup,
+                                 @Value("${querydsl.startup.report-top:20}") int top) {
+        this.applicationStartup = applicationStartup;
+        this.top = top;
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        if (!(applicationStartup instanceof BufferingApplicationStartup)) {
+            return;
+        }
+
+        StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline();
+        StringBuilder report = new StringBuilder();
+        for (StartupTimeline.TimelineEvent slow : slowestBeans(timeline)) {
+            report.append(String.format("%n  %6d ms  %s", slow.getDuration().toMillis(), beanName(slow.getStartupStep())));
+        }
+        log.info("Started in {} ms ({} startup steps recorded). Slowest beans:{}",
+                event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1,
+                timeline.getEvents().size(), report);
+    }
+
+    /**
+     * 만드는 데 오래 걸린 순서대로 최대 report-top 개의 빈 생성 단계. BufferingApplicationStartup 이 아니면 비어 있다.
+     */
+    public List<StartupTimeline.TimelineEvent> slowestBeans() {
+        if (!(applicationStartup instanceof BufferingApplicationStartup)) {
+            return Collections.emptyList();
+        }
+        return slowestBeans(((BufferingApplicationStartup) applicationStartup).getBufferedTimeline());
+    }
+
+    private List<StartupTimeline.TimelineEvent> slowestBeans(StartupTimeline timeline) {
+        return timeline.getEvents().stream()
+                .filter(e -> BEAN_INSTANTIATE.equals(e.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
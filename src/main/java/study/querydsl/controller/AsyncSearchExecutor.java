@@ -0,0 +1,62 @@
+package study.querydsl.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 비동기 검색 엔드포인트 전용 스레드 풀. 스레드 수는 커넥션 풀 크기에 맞추고,
+ * 큐가 가득 차면 기다리지 않고 {@link SearchRejectedException} 을 던진다.
+ */
+@Component
+public class AsyncSearchExecutor implements DisposableBean {
+
+    public static final String QUEUE_DEPTH = "search.async.queue.depth";
+    public static final String ACTIVE = "search.async.active";
+    public static final String REJECTED = "search.async.rejected";
+
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final Counter rejected;
+
+    public AsyncSearchExecutor(MeterRegistry registry,
+                               @Value("${querydsl.async.threads:${spring.datasource.hikari.maximum-pool-size:10}}") int threads,
+                               @Value("${querydsl.async.queue-capacity:50}") int queueCapacity,
+                               @Value("${querydsl.async.retry-after:1s}") Duration retryAfter) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("async-search-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = retryAfter;
+
+        Gauge.builder(QUEUE_DEPTH, executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder(ACTIVE, executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        this.rejected = Counter.builder(REJECTED).register(registry);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> search) {
+        try {
+            return CompletableFuture.supplyAsync(search, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new SearchRejectedException(retryAfter);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -1,7 +1,13 @@
 package study.querydsl.controller;
 
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
@@ -11,15 +17,47 @@ import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+/**
+ * local 프로필 샘플 데이터.
+ * querydsl.seed.async=true 이면 기동을 막지 않도록 ApplicationReadyEvent 뒤에 애플리케이션 TaskExecutor 에서 넣는다.
+ */
+@Slf4j
 @Profile("local")
 @Component
-@RequiredArgsConstructor
 public class InitMember {
     private final InitMemberService memberService;
+    private final TaskExecutor taskExecutor;
+    private final boolean async;
+
+    public InitMember(InitMemberService memberService,
+                      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor,
+                      @Value("${querydsl.seed.async:false}") boolean async) {
+        this.memberService = memberService;
+        this.taskExecutor = taskExecutor;
+        this.async = async;
+    }
 
     @PostConstruct
     public void init() {
-        memberService.init();
+        if (!async) {
+            memberService.init();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initAsync() {
+        if (!async) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                memberService.init();
+                log.info("Sample members seeded in {} ms", (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.warn("Sample member seeding failed", e);
+            }
+        });
     }
 
     @Component
@@ -29,6 +67,11 @@ public class InitMember {
 
         @Transactional
         public void init() {
+            // ddl-auto 가 create 가 아니면(fast 프로필의 validate 등) 이전 기동에서 넣은 데이터가 남아 있다.
+            if (em.createQuery("select count(t) from Team t", Long.class).getSingleResult() > 0) {
+                return;
+            }
+
             Team teamA = new Team("teamA");
             Team teamB = new Team("teamB");
             em.persist(teamA);
@@ -0,0 +1,52 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /v1~/v3 의 비동기 버전. DB 를 기다리는 동안 Tomcat 작업 스레드를 붙잡지 않는다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberAsyncController {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final AsyncSearchExecutor searchExecutor;
+
+    @GetMapping("/v1/members/async")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition) {
+        return searchExecutor.submit(() -> memberJpaRepository.search(condition));
+    }
+
+    @GetMapping("/v2/members/async")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+        return searchExecutor.submit(() -> memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    @GetMapping("/v3/members/async")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+        return searchExecutor.submit(() -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @ExceptionHandler(SearchRejectedException.class)
+    public ResponseEntity<String> rejected(SearchRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().getSeconds())))
+                .body(e.getMessage());
+    }
+}
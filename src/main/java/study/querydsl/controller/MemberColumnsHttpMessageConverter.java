@@ -0,0 +1,40 @@
+package study.querydsl.controller;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberColumnsCodec;
+
+import java.io.IOException;
+
+/**
+ * Accept: application/x-member-columnar 요청에 {@link MemberColumns} 를 열 단위 바이너리로 쓴다.
+ */
+@Component
+public class MemberColumnsHttpMessageConverter extends AbstractHttpMessageConverter<MemberColumns> {
+
+    public static final MediaType MEMBER_COLUMNAR = MediaType.parseMediaType(MemberColumnsCodec.MEDIA_TYPE);
+
+    public MemberColumnsHttpMessageConverter() {
+        super(MEMBER_COLUMNAR);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberColumns.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected MemberColumns readInternal(Class<? extends MemberColumns> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        return MemberColumnsCodec.read(inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(MemberColumns columns, HttpOutputMessage outputMessage) throws IOException {
+        MemberColumnsCodec.write(columns, outputMessage.getBody());
+    }
+}
@@ -1,16 +1,36 @@
 package study.querydsl.controller;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberColumnsCodec;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberCountCache;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.support.Cursor;
+import study.querydsl.repository.support.CursorSlice;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import static org.springframework.util.StringUtils.hasText;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,6 +38,14 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberCountCache countCache;
+    private final SearchETags searchETags;
+
+    @Value("${querydsl.search.batch-max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${querydsl.pagination.keyset-max-size:100}")
+    private int keysetMaxSize;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
@@ -25,12 +53,102 @@ public class MemberController {
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        checkOffset(pageable);
+        if (searchETags.checkNotModified(request, "v2", condition, pageable)) {
+            return null;
+        }
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        checkOffset(pageable);
+        if (searchETags.checkNotModified(request, "v3", condition, pageable)) {
+            return null;
+        }
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    /**
+     * Accept: application/x-member-columnar 이면 /v1~/v3 결과를 열 단위 바이너리로 돌려준다.
+     */
+    @GetMapping(value = "/v1/members", produces = MemberColumnsCodec.MEDIA_TYPE)
+    public MemberColumns searchMemberV1Columnar(MemberSearchCondition condition) {
+        return memberJpaRepository.searchColumns(condition);
+    }
+
+    @GetMapping(value = {"/v2/members", "/v3/members"}, produces = MemberColumnsCodec.MEDIA_TYPE)
+    public MemberColumns searchMemberColumnar(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        checkOffset(pageable);
+        if (searchETags.checkNotModified(request, "columnar", condition, pageable)) {
+            return null;
+        }
+        return memberRepository.searchColumns(condition, pageable);
+    }
+
+    /**
+     * 여러 검색 조건을 쿼리 한 번으로 처리한다. 결과는 요청한 조건 순서대로다.
+     */
+    @PostMapping("/members/search:batch")
+    public List<List<MemberTeamDto>> searchMemberBatch(@RequestBody List<MemberSearchCondition> conditions) {
+        if (conditions.size() > batchMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many conditions: " + conditions.size() + " > " + batchMaxSize);
+        }
+        if (conditions.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search conditions must not contain null");
+        }
+        return memberRepository.searchBatch(conditions);
+    }
+
+    /**
+     * 다음 페이지가 있는지만 알려 주고 전체 건수는 세지 않는다.
+     */
+    @GetMapping("/members/slice")
+    public Slice<MemberTeamDto> searchMemberSlice(MemberSearchCondition condition, Pageable pageable) {
+        checkOffset(pageable);
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    /**
+     * size 는 querydsl.pagination.keyset-max-size 까지로 줄인다.
+     * 잘못된 cursor 토큰이나 지원하지 않는 sort 는 400 이다.
+     */
+    @GetMapping("/v4/members")
+    public CursorSlice<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) String sort,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be greater than zero: " + size);
+        }
+        try {
+            Cursor position = hasText(cursor) ? Cursor.decode(cursor) : Cursor.first(sort);
+            return memberRepository.searchSlice(condition, position, Math.min(size, keysetMaxSize));
+        } catch (IllegalArgumentException | InvalidDataAccessApiUsageException | ConversionException e) {
+            // 레포지토리 프록시는 IllegalArgumentException 을 InvalidDataAccessApiUsageException 으로 바꾼다.
+            // 토큰의 정렬 값이 정렬 컬럼 타입으로 바뀌지 않으면 ConversionException 이다.
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * JPA 는 offset 을 int 로 받으므로 그보다 뒤의 페이지는 400 이다.
+     */
+    private static void checkOffset(Pageable pageable) {
+        if (pageable.isPaged() && pageable.getOffset() > Integer.MAX_VALUE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page offset is too large: " + pageable.getOffset());
+        }
+    }
+
+    @GetMapping("/members/count-cache")
+    public Map<String, Object> countCacheStats() {
+        CacheStats stats = countCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        return result;
+    }
 }
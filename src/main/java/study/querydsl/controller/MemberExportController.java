@@ -0,0 +1,100 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${querydsl.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * 내보내기만 오래 걸릴 수 있으므로 비동기 요청 제한 시간을 이 요청에만 따로 준다.
+     */
+    @Value("${querydsl.export.timeout:10m}")
+    private Duration timeout;
+
+    @GetMapping("/v1/members/export")
+    public WebAsyncTask<Void> exportMembers(MemberSearchCondition condition,
+                                            @RequestParam(defaultValue = "ndjson") String format,
+                                            HttpServletResponse response) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        response.setContentType((csv ? CSV : NDJSON).toString());
+        return new WebAsyncTask<>(timeout.toMillis(), () -> {
+            write(response.getOutputStream(), condition, csv);
+            return null;
+        });
+    }
+
+    private void write(OutputStream out, MemberSearchCondition condition, boolean csv) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write("memberId,username,age,teamId,teamName\n");
+        }
+
+        long[] written = {0};
+        try {
+            memberJpaRepository.searchForEach(condition, fetchSize, row -> {
+                try {
+                    writer.write(csv ? toCsv(row) : toJson(row));
+                    writer.write('\n');
+                    if (++written[0] % fetchSize == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private String toJson(MemberTeamDto row) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(row);
+    }
+
+    private String toCsv(MemberTeamDto row) {
+        return row.getMemberId() + "," + escape(row.getUsername()) + "," + row.getAge() + ","
+                + (row.getTeamId() != null ? row.getTeamId() : "") + "," + escape(row.getTeamName());
+    }
+
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
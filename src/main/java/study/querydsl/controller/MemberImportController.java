@@ -0,0 +1,45 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.service.MemberImportException;
+import study.querydsl.service.MemberImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberImportController {
+
+    private final MemberImportService memberImportService;
+
+    @PostMapping("/members/import")
+    public MemberImportResult importMembers(InputStream body,
+                                            @RequestParam(defaultValue = "csv") String format) throws IOException {
+        return "ndjson".equalsIgnoreCase(format)
+                ? memberImportService.importNdjson(body)
+                : memberImportService.importCsv(body);
+    }
+
+    /**
+     * 잘못된 행은 400, 저장 중 실패는 500 이다. 어느 쪽이든 이미 커밋된 건수와 실패한 줄 번호를 알려 준다.
+     */
+    @ExceptionHandler(MemberImportException.class)
+    public ResponseEntity<Map<String, Object>> importFailed(MemberImportException e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", e.getMessage());
+        body.put("line", e.getLine());
+        body.put("committedRows", e.getCommittedRows());
+        return ResponseEntity.status(e.isMalformedRow() ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(body);
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberDataVersion;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * (데이터 버전, 검색 조건, 페이지, 표현 방식)으로 만든 강한 ETag.
+ * 데이터 버전은 메모리에 있으므로 If-None-Match 가 맞으면 DB 에 가지 않고 304 로 끝난다.
+ * <p>
+ * {@link MemberDataVersion} 은 인스턴스 안의 변경만 알기 때문에 단일 인스턴스에서만 맞다.
+ * 여러 인스턴스가 같은 DB 에 쓰면 다른 인스턴스의 변경 뒤에도 304 를 줄 수 있으므로
+ * querydsl.search.etag=false 로 끈다.
+ */
+@Component
+public class SearchETags {
+
+    private final MemberDataVersion dataVersion;
+    private final boolean enabled;
+
+    public SearchETags(MemberDataVersion dataVersion, @Value("${querydsl.search.etag:true}") boolean enabled) {
+        this.dataVersion = dataVersion;
+        this.enabled = enabled;
+    }
+
+    /**
+     * ETag 가 요청의 If-None-Match 와 같으면 304 를 설정하고 true 를 돌려준다.
+     * 버전은 조회 전에 읽으므로 조회 중에 데이터가 바뀌면 다음 요청에서 다시 조회된다.
+     */
+    public boolean checkNotModified(WebRequest request, String resource,
+                                    MemberSearchCondition condition, Pageable pageable) {
+        if (!enabled) {
+            return false;
+        }
+        String key = dataVersion.current()
+                + "|" + resource
+                + "|" + condition.getUsername()
+                + "|" + condition.getTeamName()
+                + "|" + condition.getAgeGoe()
+                + "|" + condition.getAgeLoe()
+                + "|" + pageable
+                + "|" + request.getHeader(HttpHeaders.ACCEPT)
+                + "|" + request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        String etag = "\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+        return request.checkNotModified(etag);
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.controller;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 비동기 검색 큐가 가득 차서 요청을 받지 않았다. 429 + Retry-After 로 응답한다.
+ */
+@Getter
+public class SearchRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public SearchRejectedException(Duration retryAfter) {
+        super("Search queue is full, retry after " + retryAfter.getSeconds() + "s");
+        this.retryAfter = retryAfter;
+    }
+}
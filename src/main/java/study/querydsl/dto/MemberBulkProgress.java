@@ -0,0 +1,37 @@
+package study.querydsl.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * chunk 단위 벌크 연산의 진행 상황. lastId 는 마지막으로 커밋된 chunk 의 가장 큰 member id 로,
+ * 실패 후 이어서 실행할 때 afterId 로 넘긴다.
+ */
+@Getter
+@ToString
+public class MemberBulkProgress {
+    private final long chunks;
+    private final long rows;
+    private final Long lastId;
+    private final long elapsedMillis;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final long startNanos;
+
+    private MemberBulkProgress(long chunks, long rows, Long lastId, long startNanos) {
+        this.chunks = chunks;
+        this.rows = rows;
+        this.lastId = lastId;
+        this.startNanos = startNanos;
+        this.elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public static MemberBulkProgress start(Long afterId) {
+        return new MemberBulkProgress(0, 0, afterId, System.nanoTime());
+    }
+
+    public MemberBulkProgress next(long affectedRows, Long lastId) {
+        return new MemberBulkProgress(chunks + 1, rows + affectedRows, lastId, startNanos);
+    }
+}
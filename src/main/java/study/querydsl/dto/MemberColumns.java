@@ -0,0 +1,131 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 검색 결과를 행 대신 열 단위로 담는다. 팀은 응답마다 한 번만 사전(teamIds/teamNames)에 담고
+ * 각 행은 사전의 위치(teamRefs, 팀이 없으면 -1)만 가진다.
+ * <p>
+ * 페이징하지 않은 결과면 totalElements, pageNumber, pageSize 는 -1 이다.
+ */
+@Getter
+public class MemberColumns {
+
+    public static final int NO_TEAM = -1;
+    public static final int UNPAGED = -1;
+
+    private final long[] memberIds;
+    private final String[] usernames;
+    private final int[] ages;
+    private final int[] teamRefs;
+    private final long[] teamIds;
+    private final String[] teamNames;
+    private final long totalElements;
+    private final int pageNumber;
+    private final int pageSize;
+
+    public MemberColumns(long[] memberIds, String[] usernames, int[] ages, int[] teamRefs,
+                         long[] teamIds, String[] teamNames, long totalElements, int pageNumber, int pageSize) {
+        this.memberIds = memberIds;
+        this.usernames = usernames;
+        this.ages = ages;
+        this.teamRefs = teamRefs;
+        this.teamIds = teamIds;
+        this.teamNames = teamNames;
+        this.totalElements = totalElements;
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+    }
+
+    public static Builder builder(int expectedRows) {
+        return new Builder(expectedRows);
+    }
+
+    public int size() {
+        return memberIds.length;
+    }
+
+    public boolean isPaged() {
+        return totalElements != UNPAGED;
+    }
+
+    /**
+     * 페이지 정보를 붙인다. 페이징하지 않은 요청이면 그대로 돌려준다.
+     */
+    public MemberColumns withPage(Pageable pageable, long totalElements) {
+        if (pageable.isUnpaged()) {
+            return this;
+        }
+        return new MemberColumns(memberIds, usernames, ages, teamRefs, teamIds, teamNames, totalElements,
+                pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    public List<MemberTeamDto> toDtos() {
+        List<MemberTeamDto> result = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            int ref = teamRefs[i];
+            result.add(new MemberTeamDto(memberIds[i], usernames[i], ages[i],
+                    ref == NO_TEAM ? null : teamIds[ref],
+                    ref == NO_TEAM ? null : teamNames[ref]));
+        }
+        return result;
+    }
+
+    public static class Builder {
+
+        private long[] memberIds;
+        private String[] usernames;
+        private int[] ages;
+        private int[] teamRefs;
+        private int size;
+
+        private final Map<Long, Integer> teamIndex = new HashMap<>();
+        private final List<Long> teamIds = new ArrayList<>();
+        private final List<String> teamNames = new ArrayList<>();
+
+        private Builder(int expectedRows) {
+            int capacity = Math.max(expectedRows, 16);
+            memberIds = new long[capacity];
+            usernames = new String[capacity];
+            ages = new int[capacity];
+            teamRefs = new int[capacity];
+        }
+
+        public Builder add(Long memberId, String username, int age, Long teamId, String teamName) {
+            if (size == memberIds.length) {
+                int capacity = size * 2;
+                memberIds = Arrays.copyOf(memberIds, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamRefs = Arrays.copyOf(teamRefs, capacity);
+            }
+            memberIds[size] = memberId;
+            usernames[size] = username;
+            ages[size] = age;
+            teamRefs[size] = teamId == null ? NO_TEAM : teamIndex.computeIfAbsent(teamId, id -> {
+                teamIds.add(id);
+                teamNames.add(teamName);
+                return teamIds.size() - 1;
+            });
+            size++;
+            return this;
+        }
+
+        public MemberColumns build() {
+            long[] ids = new long[teamIds.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = teamIds.get(i);
+            }
+            return new MemberColumns(Arrays.copyOf(memberIds, size), Arrays.copyOf(usernames, size),
+                    Arrays.copyOf(ages, size), Arrays.copyOf(teamRefs, size),
+                    ids, teamNames.toArray(new String[0]), UNPAGED, UNPAGED, UNPAGED);
+        }
+    }
+}
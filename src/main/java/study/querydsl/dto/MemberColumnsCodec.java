@@ -0,0 +1,149 @@
+package study.querydsl.dto;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * application/x-member-columnar 인코더/디코더.
+ * <pre>
+ * int     magic "MCOL", byte version
+ * varlong totalElements, varint pageNumber, varint pageSize   (페이징하지 않으면 -1)
+ * varint  팀 수, 팀마다 varlong teamId + string teamName
+ * varint  행 수
+ * 열      memberId(직전 값과의 차이), age, teamRef(+1, 0 이면 팀 없음), username
+ * </pre>
+ * 정수는 모두 zigzag varint 이고, 문자열은 (UTF-8 바이트 수 + 1) 뒤에 바이트가 온다. 0 이면 null.
+ */
+public abstract class MemberColumnsCodec {
+
+    public static final String MEDIA_TYPE = "application/x-member-columnar";
+
+    private static final int MAGIC = 0x4D434F4C;
+    private static final int VERSION = 1;
+
+    private MemberColumnsCodec() {
+    }
+
+    public static void write(MemberColumns columns, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        writeLong(data, columns.getTotalElements());
+        writeLong(data, columns.getPageNumber());
+        writeLong(data, columns.getPageSize());
+
+        long[] teamIds = columns.getTeamIds();
+        writeLong(data, teamIds.length);
+        for (int i = 0; i < teamIds.length; i++) {
+            writeLong(data, teamIds[i]);
+            writeString(data, columns.getTeamNames()[i]);
+        }
+
+        int size = columns.size();
+        writeLong(data, size);
+        long previous = 0;
+        for (long memberId : columns.getMemberIds()) {
+            writeLong(data, memberId - previous);
+            previous = memberId;
+        }
+        for (int age : columns.getAges()) {
+            writeLong(data, age);
+        }
+        for (int ref : columns.getTeamRefs()) {
+            writeLong(data, ref + 1);
+        }
+        for (String username : columns.getUsernames()) {
+            writeString(data, username);
+        }
+        data.flush();
+    }
+
+    public static MemberColumns read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a member columnar payload");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported member columnar version " + version);
+        }
+        long totalElements = readLong(data);
+        int pageNumber = (int) readLong(data);
+        int pageSize = (int) readLong(data);
+
+        int teams = (int) readLong(data);
+        long[] teamIds = new long[teams];
+        String[] teamNames = new String[teams];
+        for (int i = 0; i < teams; i++) {
+            teamIds[i] = readLong(data);
+            teamNames[i] = readString(data);
+        }
+
+        int size = (int) readLong(data);
+        long[] memberIds = new long[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += readLong(data);
+            memberIds[i] = previous;
+        }
+        int[] ages = new int[size];
+        for (int i = 0; i < size; i++) {
+            ages[i] = (int) readLong(data);
+        }
+        int[] teamRefs = new int[size];
+        for (int i = 0; i < size; i++) {
+            teamRefs[i] = (int) readLong(data) - 1;
+        }
+        String[] usernames = new String[size];
+        for (int i = 0; i < size; i++) {
+            usernames[i] = readString(data);
+        }
+        return new MemberColumns(memberIds, usernames, ages, teamRefs, teamIds, teamNames,
+                totalElements, pageNumber, pageSize);
+    }
+
+    private static void writeLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    private static long readLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readLong(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class MemberImportResult {
+    private final long rows;
+    private final long chunks;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+    private final double avgChunkMillis;
+    private final double maxChunkMillis;
+
+    public MemberImportResult(long rows, long chunks, long elapsedNanos, long totalChunkNanos, long maxChunkNanos) {
+        this.rows = rows;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos > 0 ? rows * 1_000_000_000.0 / elapsedNanos : 0;
+        this.avgChunkMillis = chunks > 0 ? totalChunkNanos / 1_000_000.0 / chunks : 0;
+        this.maxChunkMillis = maxChunkNanos / 1_000_000.0;
+    }
+}
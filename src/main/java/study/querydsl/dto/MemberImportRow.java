@@ -0,0 +1,14 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberImportRow {
+    private String username;
+    private int age;
+    private String teamName;
+}
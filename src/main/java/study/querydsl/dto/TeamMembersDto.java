@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.List;
+
+@Getter
+@ToString
+public class TeamMembersDto {
+    private final Long teamId;
+    private final String teamName;
+    private final List<MemberDto> members;
+
+    public TeamMembersDto(Long teamId, String teamName, List<MemberDto> members) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.members = Collections.unmodifiableList(members);
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.entity;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA 엔티티 리스너. Hibernate 가 Spring 빈 컨테이너로 생성하므로 생성자 주입을 받는다.
+ * <p>
+ * 이벤트를 받는 쪽(검색 인덱스, team_stats 증분 갱신)이 모두 꺼져 있으면 이벤트를 만들지 않는다.
+ */
+public class EntityChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+    private final boolean enabled;
+
+    public EntityChangeListener(ApplicationEventPublisher publisher,
+                                @Value("${querydsl.search.source:db}") String searchSource,
+                                @Value("${querydsl.team-stats.enabled:true}") boolean teamStatsEnabled) {
+        this.publisher = publisher;
+        this.enabled = "index".equals(searchSource) || teamStatsEnabled;
+    }
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        publish(entity, EntityChangedEvent.Type.PERSIST);
+    }
+
+    @PostUpdate
+    public void postUpdate(Object entity) {
+        publish(entity, EntityChangedEvent.Type.UPDATE);
+    }
+
+    @PostRemove
+    public void postRemove(Object entity) {
+        publish(entity, EntityChangedEvent.Type.REMOVE);
+    }
+
+    private void publish(Object entity, EntityChangedEvent.Type type) {
+        if (enabled) {
+            publisher.publishEvent(new EntityChangedEvent(entity, type));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+
+/**
+ * 엔티티가 저장/수정/삭제(SQL 실행 직후)되었음을 알리는 이벤트. 트랜잭션이 커밋되기 전에 발행된다.
+ */
+@Getter
+public class EntityChangedEvent {
+
+    public enum Type {
+        PERSIST, UPDATE, REMOVE
+    }
+
+    private final Object entity;
+    private final Type type;
+
+    public EntityChangedEvent(Object entity, Type type) {
+        this.entity = entity;
+        this.type = type;
+    }
+
+    public boolean isEntity(Class<?> entityType) {
+        return entityType.isInstance(entity);
+    }
+}
@@ -1,24 +1,38 @@
 package study.querydsl.entity;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.*;
 
 import static javax.persistence.FetchType.LAZY;
 import static lombok.AccessLevel.PROTECTED;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
 
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age", columnList = "age")
+})
+@Cache(usage = READ_WRITE)
+@EntityListeners(EntityChangeListener.class)
 @NoArgsConstructor(access = PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
+    /**
+     * 대량 저장 시 행마다 시퀀스를 다녀오지 않도록 JDBC batch_size 만큼 id 를 한 번에 받아 둔다.
+     */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 100)
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -28,6 +42,18 @@ public class Member {
     @JoinColumn(name = "team_id")
     private Team team;
 
+    /**
+     * 마지막으로 DB 와 맞춰진 팀 id 와 나이. 수정/삭제 시 팀 통계에서 뺄 이전 값이다.
+     * 엔티티 리스너가 먼저 호출된 뒤 {@link #markPersisted()} 가 호출된다.
+     */
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private Long persistedTeamId;
+
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private Integer persistedAge;
+
     public Member(String username, int age, Team team) {
         this.username = username;
         this.age = age;
@@ -44,8 +70,19 @@ public class Member {
         this(username, age, null);
     }
 
+    /**
+     * 팀 이동. 이전 팀과 새 팀의 통계는 flush 때 {@link #getPersistedTeamId()} 와 현재 팀을 비교해 함께 갱신된다.
+     */
     public void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
     }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void markPersisted() {
+        this.persistedTeamId = team != null ? team.getId() : null;
+        this.persistedAge = age;
+    }
 }
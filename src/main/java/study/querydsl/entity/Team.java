@@ -4,16 +4,21 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 import static lombok.AccessLevel.PROTECTED;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
 
 @Getter
 @Setter
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cache(usage = READ_WRITE)
+@EntityListeners(EntityChangeListener.class)
 @NoArgsConstructor(access = PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
@@ -0,0 +1,39 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import static lombok.AccessLevel.PROTECTED;
+
+/**
+ * 팀별 회원 수/나이 합/최소/최대 나이. 회원 변경을 따라 증분으로 갱신되는 집계 테이블이라 JPA 로는 읽기만 한다.
+ *
+ * @see study.querydsl.repository.TeamStatsMaintainer
+ */
+@Getter
+@Entity
+@Immutable
+@Table(name = "team_stats")
+@NoArgsConstructor(access = PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge;
+    private Integer maxAge;
+
+    public Double getAverageAge() {
+        return memberCount > 0 ? (double) ageSum / memberCount : null;
+    }
+}
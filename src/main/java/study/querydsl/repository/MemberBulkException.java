@@ -0,0 +1,19 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import study.querydsl.dto.MemberBulkProgress;
+
+/**
+ * chunk 벌크 연산이 중간에 실패했다. progress 까지는 이미 커밋되었으므로
+ * progress.getLastId() 를 afterId 로 넘겨 이어서 실행할 수 있다.
+ */
+@Getter
+public class MemberBulkException extends RuntimeException {
+
+    private final MemberBulkProgress progress;
+
+    public MemberBulkException(String operation, MemberBulkProgress progress, Throwable cause) {
+        super(operation + " failed after " + progress.getChunks() + " chunks (lastId=" + progress.getLastId() + ")", cause);
+        this.progress = progress;
+    }
+}
@@ -0,0 +1,161 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import study.querydsl.dto.MemberBulkProgress;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 조건에 맞는 회원을 id 순으로 chunkSize 건씩 나눠 벌크 수정/삭제한다.
+ * <p>
+ * chunk 마다 새 트랜잭션(REQUIRES_NEW)으로 커밋하므로 락을 잡는 시간과 undo 크기가 chunk 크기로 제한된다.
+ * 바깥 트랜잭션이 있으면 그 트랜잭션의 변경과 chunk 커밋이 섞이므로 트랜잭션 밖에서만 호출할 수 있다.
+ * chunk 가 끝날 때마다 현재 스레드의 영속성 컨텍스트(open-in-view 등)를 비워 오래된 엔티티가 남지 않게 한다.
+ * 트랜잭션 밖이므로 비울 때 잃어버리는 변경은 없다.
+ * 실패하면 {@link MemberBulkException} 에 마지막으로 커밋된 id 가 담기고, 그 id 를 afterId 로 넘기면 이어서 실행된다.
+ */
+@Slf4j
+@Repository
+public class MemberBulkRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final ObjectProvider<TeamStatsMaintainer> teamStats;
+
+    public MemberBulkRepository(EntityManager em, JPAQueryFactory queryFactory,
+                                PlatformTransactionManager transactionManager,
+                                ObjectProvider<TeamStatsMaintainer> teamStats) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.teamStats = teamStats;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public MemberBulkProgress bulkUpdateAge(MemberSearchCondition condition, int delta, int chunkSize) {
+        return bulkUpdateAge(condition, delta, chunkSize, null, progress -> {
+        });
+    }
+
+    public MemberBulkProgress bulkUpdateAge(MemberSearchCondition condition, int delta, int chunkSize,
+                                            Long afterId, Consumer<MemberBulkProgress> listener) {
+        return inChunks("bulkUpdateAge", condition, chunkSize, afterId, listener,
+                ids -> queryFactory.update(member)
+                        .set(member.age, member.age.add(delta))
+                        .where(member.id.in(ids))
+                        .execute());
+    }
+
+    public MemberBulkProgress bulkDelete(MemberSearchCondition condition, int chunkSize) {
+        return bulkDelete(condition, chunkSize, null, progress -> {
+        });
+    }
+
+    public MemberBulkProgress bulkDelete(MemberSearchCondition condition, int chunkSize,
+                                         Long afterId, Consumer<MemberBulkProgress> listener) {
+        return inChunks("bulkDelete", condition, chunkSize, afterId, listener,
+                ids -> queryFactory.delete(member)
+                        .where(member.id.in(ids))
+                        .execute());
+    }
+
+    private MemberBulkProgress inChunks(String operation, MemberSearchCondition condition, int chunkSize, Long afterId,
+                                        Consumer<MemberBulkProgress> listener, ToLongFunction<List<Long>> action) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be greater than zero!");
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(),
+                operation + " commits its own chunks and must not run inside a transaction");
+
+        MemberBulkProgress progress = MemberBulkProgress.start(afterId);
+        while (true) {
+            MemberBulkProgress current = progress;
+            MemberBulkProgress next;
+            try {
+                next = chunkTransaction.execute(status -> {
+                    List<Long> ids = queryFactory.select(member.id)
+                            .from(member)
+                            .leftJoin(member.team, team)
+                            .where(idGt(current.getLastId()),
+                                    usernameEq(condition.getUsername()),
+                                    teamNameEq(condition.getTeamName()),
+                                    ageGoe(condition.getAgeGoe()),
+                                    ageLoe(condition.getAgeLoe()))
+                            .orderBy(member.id.asc())
+                            .limit(chunkSize)
+                            .fetch();
+                    if (ids.isEmpty()) {
+                        return null;
+                    }
+                    recomputeTeamStats(ids);
+                    return current.next(action.applyAsLong(ids), ids.get(ids.size() - 1));
+                });
+            } catch (RuntimeException e) {
+                throw new MemberBulkException(operation, progress, e);
+            }
+            em.clear();
+
+            if (next == null) {
+                log.info("{} finished: {}", operation, progress);
+                return progress;
+            }
+            progress = next;
+            log.debug("{} progress: {}", operation, progress);
+            try {
+                listener.accept(progress);
+            } catch (RuntimeException e) {
+                throw new MemberBulkException(operation, progress, e);
+            }
+        }
+    }
+
+    /**
+     * 이 chunk 의 회원이 속한 팀만 커밋 직전에 team_stats 를 다시 계산하게 한다.
+     */
+    private void recomputeTeamStats(List<Long> ids) {
+        TeamStatsMaintainer maintainer = teamStats.getIfAvailable();
+        if (maintainer != null) {
+            maintainer.recomputeOnCommit(queryFactory.select(member.team.id)
+                    .distinct()
+                    .from(member)
+                    .where(member.id.in(ids))
+                    .fetch());
+        }
+    }
+
+    private BooleanExpression idGt(Long afterId) {
+        return afterId != null ? member.id.gt(afterId) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
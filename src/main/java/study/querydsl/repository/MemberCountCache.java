@@ -0,0 +1,83 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.support.DataChangedEvent;
+import study.querydsl.repository.support.TransactionCallbacks;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 페이징 검색의 count 결과 캐시. member, team 이 변경되면 전부 무효화한다.
+ * querydsl.count-cache.maximum-size 가 0 이면 캐시하지 않고 매번 count 쿼리를 실행한다.
+ */
+@Component
+public class MemberCountCache {
+
+    private final Cache<Key, Long> cache;
+    private final boolean enabled;
+
+    public MemberCountCache(@Value("${querydsl.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${querydsl.count-cache.maximum-size:1000}") long maximumSize,
+                            MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.enabled = maximumSize > 0;
+        CaffeineCacheMetrics.monitor(registry, cache, "memberCount");
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        if (!enabled) {
+            return countQuery.getAsLong();
+        }
+        return cache.get(new Key(condition), key -> countQuery.getAsLong());
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @EventListener
+    public void onDataChanged(DataChangedEvent event) {
+        if (!event.isTable("member", "team")) {
+            return;
+        }
+
+        invalidateAll();
+        // 커밋(또는 롤백) 전에 다른 요청이 다시 채운 값도 버린다. DML 이 많아도 트랜잭션마다 한 번만 등록한다.
+        TransactionCallbacks.afterCompletionOnce(this, this::invalidateAll);
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+        private final String username;
+        private final String teamName;
+        private final Integer ageGoe;
+        private final Integer ageLoe;
+
+        private Key(MemberSearchCondition condition) {
+            this.username = hasText(condition.getUsername()) ? condition.getUsername() : null;
+            this.teamName = hasText(condition.getTeamName()) ? condition.getTeamName() : null;
+            this.ageGoe = condition.getAgeGoe();
+            this.ageLoe = condition.getAgeLoe();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.repository;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.support.DataChangedEvent;
+import study.querydsl.repository.support.TransactionCallbacks;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * member, team 데이터 버전. 엔티티 저장이든 벌크 연산이든 DML 이 실행될 때마다 올라간다.
+ * <p>
+ * 재시작 후 예전 버전 값이 다시 쓰이지 않도록 시작 시각에서 출발한다.
+ * 버전은 인스턴스마다 따로 관리된다.
+ */
+@Component
+public class MemberDataVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    @EventListener
+    public void onDataChanged(DataChangedEvent event) {
+        if (!event.isTable("member", "team")) {
+            return;
+        }
+
+        version.incrementAndGet();
+        // 커밋 전에 읽힌 응답이 새 버전으로 기억되지 않도록 트랜잭션이 끝날 때 한 번 더 올린다.
+        TransactionCallbacks.afterCompletionOnce(this, version::incrementAndGet);
+    }
+}
@@ -3,18 +3,27 @@ package study.querydsl.repository;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberColumns;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.RepositoryMetrics;
 
 import javax.persistence.EntityManager;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.repository.MemberSearchQueryCache.shapeName;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
@@ -22,13 +31,22 @@ import static study.querydsl.entity.QTeam.team;
 @Transactional(readOnly = true)
 public class MemberJpaRepository {
 
+    private static final String REPOSITORY = "MemberJpaRepository";
+
     private final EntityManager em;
 
     private final JPAQueryFactory queryFactory;
 
-    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    private final MemberSearchQueryCache searchQueryCache;
+
+    private final RepositoryMetrics metrics;
+
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, MemberSearchQueryCache searchQueryCache,
+                               RepositoryMetrics metrics) {
         this.em = em;
         this.queryFactory = queryFactory;
+        this.searchQueryCache = searchQueryCache;
+        this.metrics = metrics;
     }
 
     @Transactional
@@ -63,39 +81,63 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * {@link #search} 와 같은 결과를 BooleanBuilder 로 매번 새로 만든 쿼리로 구한다. 컴파일된 JPQL 캐시를 거치지 않는다.
+     */
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
-        BooleanBuilder builder = new BooleanBuilder();
-        if (hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
-        }
-
-        if (hasText(condition.getTeamName())) {
-            builder.and(member.team.name.eq(condition.getTeamName()));
-        }
+        return metrics.record(REPOSITORY, "searchByBuilder", shapeName(condition), () -> {
+            BooleanBuilder builder = new BooleanBuilder();
+            if (hasText(condition.getUsername())) {
+                builder.and(member.username.eq(condition.getUsername()));
+            }
+
+            if (hasText(condition.getTeamName())) {
+                builder.and(member.team.name.eq(condition.getTeamName()));
+            }
+
+            if (condition.getAgeGoe() != null) {
+                builder.and(member.age.goe(condition.getAgeGoe()));
+            }
+
+            if (condition.getAgeLoe() != null) {
+                builder.and(member.age.loe(condition.getAgeLoe()));
+            }
+
+            return queryFactory.select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            member.team.id.as("teamId"),
+                            member.team.name.as("teamName")
+                    ))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(builder)
+                    .fetch();
+        });
+    }
 
-        if (condition.getAgeGoe() != null) {
-            builder.and(member.age.goe(condition.getAgeGoe()));
-        }
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return metrics.record(REPOSITORY, "search", shapeName(condition),
+                () -> searchQueryCache.fetch(condition));
+    }
 
-        if (condition.getAgeLoe() != null) {
-            builder.and(member.age.loe(condition.getAgeLoe()));
-        }
+    public MemberColumns searchColumns(MemberSearchCondition condition) {
+        return metrics.record(REPOSITORY, "searchColumns", shapeName(condition),
+                () -> searchQueryCache.fetchColumns(condition, Sort.unsorted(), 0, -1));
+    }
 
-        return queryFactory.select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        member.team.id.as("teamId"),
-                        member.team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(builder)
-                .fetch();
+    /**
+     * 결과를 한 번에 메모리에 올리지 않고 forward-only 커서로 한 건씩 읽어 넘긴다.
+     * DTO 프로젝션이라 영속성 컨텍스트에 남는 것이 없으므로 결과 건수와 무관하게 힙 사용량이 일정하다.
+     */
+    public long searchForEach(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> action) {
+        return metrics.record(REPOSITORY, "searchForEach", shapeName(condition),
+                () -> streamEach(condition, fetchSize, action));
     }
 
-    public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory.select(new QMemberTeamDto(
+    private long streamEach(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> action) {
+        try (Stream<MemberTeamDto> stream = queryFactory.select(new MemberTeamDtoProjection(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
@@ -109,7 +151,18 @@ public class MemberJpaRepository {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
-                .fetch();
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .stream()) {
+
+            long count = 0;
+            Iterator<MemberTeamDto> rows = stream.iterator();
+            while (rows.hasNext()) {
+                action.accept(rows.next());
+                count++;
+            }
+            return count;
+        }
     }
 
     private BooleanExpression ageBetween(int ageLoeCod, int ageGoeCod) {
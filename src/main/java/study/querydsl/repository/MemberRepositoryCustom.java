@@ -2,8 +2,12 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberColumns;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.Cursor;
+import study.querydsl.repository.support.CursorSlice;
 
 import java.util.List;
 
@@ -11,8 +15,16 @@ public interface MemberRepositoryCustom {
 
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
+    List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions);
+
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+    MemberColumns searchColumns(MemberSearchCondition condition, Pageable pageable);
+
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    CursorSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Cursor cursor, int size);
+
 }
@@ -1,92 +1,165 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import study.querydsl.dto.MemberColumns;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.Cursor;
+import study.querydsl.repository.support.CursorSlice;
+import study.querydsl.repository.support.KeysetExecutionUtils;
+import study.querydsl.repository.support.RepositoryMetrics;
+import study.querydsl.repository.support.SliceExecutionUtils;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.repository.MemberSearchQueryCache.shapeName;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom {
 
+    private static final String REPOSITORY = "MemberRepository";
+
     private final JPAQueryFactory queryFactory;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    private final MemberCountCache countCache;
+
+    private final MemberSearchQueryCache searchQueryCache;
+
+    private final long deferredJoinOffset;
+
+    private final RepositoryMetrics metrics;
+
+    private final ObjectProvider<MemberSearchIndex> searchIndex;
+
+    public MemberRepositoryImpl(EntityManager em, MemberCountCache countCache, MemberSearchQueryCache searchQueryCache,
+                                @Value("${querydsl.pagination.deferred-join-offset:1000}") long deferredJoinOffset,
+                                RepositoryMetrics metrics, ObjectProvider<MemberSearchIndex> searchIndex) {
         super(Member.class);
         this.queryFactory = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.searchQueryCache = searchQueryCache;
+        this.deferredJoinOffset = deferredJoinOffset;
+        this.metrics = metrics;
+        this.searchIndex = searchIndex;
     }
 
+    /**
+     * querydsl.search.source=index 이면 DB 대신 메모리 인덱스에서 찾는다.
+     */
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        List<MemberTeamDto> result = from(member).leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ).select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        member.team.id.as("teamId"),
-                        member.team.name.as("teamName")
-                )).fetch();
+        MemberSearchIndex index = searchIndex.getIfAvailable();
+        return metrics.record(REPOSITORY, "search", shapeName(condition),
+                () -> index != null ? index.search(condition) : searchQueryCache.fetch(condition));
+    }
 
-        return queryFactory.select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        member.team.id.as("teamId"),
-                        member.team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
+    /**
+     * 여러 조건을 OR 로 묶은 쿼리 한 번으로 조회한 뒤, 각 행이 어느 조건에 맞는지 가려 조건별로 나눈다.
+     * 조건이 거르는 컬럼(username, team.name, age)은 모두 결과에 있으므로 행마다 조건을 다시 평가하면 된다.
+     * 결과는 요청한 조건 순서대로이고 각 목록은 member id 순이다. 같은 행이 여러 조건에 맞으면 같은 DTO 가 들어간다.
+     */
+    @Override
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+        Assert.noNullElements(conditions, "Search conditions must not contain null!");
+        MemberSearchIndex index = searchIndex.getIfAvailable();
+        return metrics.record(REPOSITORY, "searchBatch", "batch", () -> {
+            List<List<MemberTeamDto>> result = new ArrayList<>(conditions.size());
+            if (index != null) {
+                for (MemberSearchCondition condition : conditions) {
+                    result.add(index.search(condition));
+                }
+                return result;
+            }
+
+            List<Predicate> predicates = new ArrayList<>(conditions.size());
+            boolean matchAll = false;
+            for (MemberSearchCondition condition : conditions) {
+                Predicate predicate = ExpressionUtils.allOf(usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                        ageLoe(condition.getAgeLoe()));
+                if (predicate == null) {
+                    matchAll = true;
+                } else if (!predicates.contains(predicate)) {
+                    predicates.add(predicate);
+                }
+                result.add(new ArrayList<>());
+            }
+            if (conditions.isEmpty()) {
+                return result;
+            }
+
+            List<MemberTeamDto> rows = queryFactory.select(new MemberTeamDtoProjection(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            member.team.id.as("teamId"),
+                            team.name.as("teamName")
+                    ))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(matchAll ? null : ExpressionUtils.anyOf(predicates))
+                    .orderBy(member.id.asc())
+                    .fetch();
+
+            for (MemberTeamDto row : rows) {
+                for (int i = 0; i < conditions.size(); i++) {
+                    if (matches(conditions.get(i), row)) {
+                        result.get(i).add(row);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * {@link #searchBatch} 의 OR 쿼리 결과에서 행이 조건에 맞는지. where 절의 조건과 같은 의미여야 한다.
+     * <p>
+     * 문자열은 {@link String#equals} 로 비교하므로 DB 의 문자열 비교가 대소문자와 끝 공백을 구분할 때(H2 기본 collation)만
+     * where 절과 같다. 대소문자를 무시하는 collation 을 쓰는 DB 로 옮기면 이 비교도 같이 바꿔야 한다.
+     */
+    private static boolean matches(MemberSearchCondition condition, MemberTeamDto row) {
+        return (!hasText(condition.getUsername()) || condition.getUsername().equals(row.getUsername()))
+                && (!hasText(condition.getTeamName()) || condition.getTeamName().equals(row.getTeamName()))
+                && (condition.getAgeGoe() == null || row.getAge() >= condition.getAgeGoe())
+                && (condition.getAgeLoe() == null || row.getAge() <= condition.getAgeLoe());
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory.select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        member.team.id.as("teamId"),
-                        member.team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults();
-
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
+        return metrics.record(REPOSITORY, "searchPageSimple", shapeName(condition), () -> {
+            List<MemberTeamDto> content = searchQueryCache.fetch(condition, pageable);
+            metrics.markCountQuery();
+            long total = searchQueryCache.fetchCount(condition);
 
-        return new PageImpl<>(content, pageable, total);
+            return new PageImpl<>(content, pageable, total);
+        });
     }
 
     public Page<MemberTeamDto> searchPageSimple2(MemberSearchCondition condition, Pageable pageable) {
@@ -116,9 +189,85 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = getMemberContent(condition, pageable);
+        return metrics.record(REPOSITORY, "searchPageComplex", shapeName(condition), () -> {
+            List<MemberTeamDto> content = getMemberContent(condition, pageable);
+
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> countCache.get(condition, () -> {
+                        metrics.markCountQuery();
+                        return searchQueryCache.fetchCount(condition);
+                    }));
+        });
+    }
 
-        JPAQuery<Member> countQuery = queryFactory.select(member)
+    private List<MemberTeamDto> getMemberContent(MemberSearchCondition condition, Pageable pageable) {
+        if (pageable.isPaged() && pageable.getOffset() >= deferredJoinOffset) {
+            return searchQueryCache.fetchDeferred(condition, pageable);
+        }
+        return searchQueryCache.fetch(condition, pageable);
+    }
+
+    /**
+     * 열 단위 응답용. searchPageComplex 와 같이 깊은 페이지는 deferred join 으로 읽고,
+     * count 는 필요할 때만 캐시를 거쳐 실행한다. 페이징하지 않은 요청은 페이지 정보 없이 돌려준다.
+     */
+    @Override
+    public MemberColumns searchColumns(MemberSearchCondition condition, Pageable pageable) {
+        return metrics.record(REPOSITORY, "searchColumns", shapeName(condition), () -> {
+            if (pageable.isUnpaged()) {
+                return searchQueryCache.fetchColumns(condition, pageable.getSort(), 0, -1);
+            }
+            MemberColumns content = pageable.getOffset() >= deferredJoinOffset
+                    ? searchQueryCache.fetchColumnsDeferred(condition, pageable)
+                    : searchQueryCache.fetchColumns(condition, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+
+            return content.withPage(pageable, columnsTotal(condition, pageable, content.size()));
+        });
+    }
+
+    /**
+     * {@link PageableExecutionUtils#getPage} 와 같은 규칙으로, 마지막 페이지임이 확실하면 count 를 생략한다.
+     */
+    private long columnsTotal(MemberSearchCondition condition, Pageable pageable, int contentSize) {
+        if (pageable.getOffset() == 0) {
+            if (pageable.getPageSize() > contentSize) {
+                return contentSize;
+            }
+        } else if (contentSize != 0 && pageable.getPageSize() > contentSize) {
+            return pageable.getOffset() + contentSize;
+        }
+        return countCache.get(condition, () -> {
+            metrics.markCountQuery();
+            return searchQueryCache.fetchCount(condition);
+        });
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return metrics.record(REPOSITORY, "searchSlice", shapeName(condition), () -> {
+            List<MemberTeamDto> rows = pageable.isPaged()
+                    ? searchQueryCache.fetch(condition, pageable.getSort(), pageable.getOffset(),
+                    SliceExecutionUtils.probeLimit(pageable))
+                    : searchQueryCache.fetch(condition, pageable);
+            return SliceExecutionUtils.getSlice(rows, pageable);
+        });
+    }
+
+    @Override
+    public CursorSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Cursor cursor, int size) {
+        // offset 슬라이스와 쿼리 방식이 다르므로 따로 기록한다.
+        return metrics.record(REPOSITORY, "searchKeyset", shapeName(condition),
+                () -> keysetSlice(condition, cursor, size));
+    }
+
+    private CursorSlice<MemberTeamDto> keysetSlice(MemberSearchCondition condition, Cursor cursor, int size) {
+        JPAQuery<MemberTeamDto> query = queryFactory.select(new MemberTeamDtoProjection(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        member.team.id.as("teamId"),
+                        member.team.name.as("teamName")
+                ))
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(usernameEq(condition.getUsername()),
@@ -127,28 +276,37 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         ageLoe(condition.getAgeLoe())
                 );
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+        return KeysetExecutionUtils.getSlice(query, cursor, size,
+                sortKey(cursor.getSort()), sortValue(cursor.getSort()),
+                member.id, MemberTeamDto::getMemberId);
     }
 
-    private List<MemberTeamDto> getMemberContent(MemberSearchCondition condition, Pageable pageable) {
-        JPQLQuery<MemberTeamDto> jpaQuery = from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        member.team.id.as("teamId"),
-                        member.team.name.as("teamName")
-                ));
-
-        JPQLQuery<MemberTeamDto> query = getQuerydsl().applyPagination(pageable, jpaQuery);
+    private ComparableExpressionBase<?> sortKey(String sort) {
+        if (sort == null) {
+            return null;
+        }
+        switch (sort) {
+            case "username":
+                return member.username;
+            case "age":
+                return member.age;
+            default:
+                throw new IllegalArgumentException("Unsupported keyset sort: " + sort);
+        }
+    }
 
-        return query.fetch();
+    private Function<MemberTeamDto, ?> sortValue(String sort) {
+        if (sort == null) {
+            return null;
+        }
+        switch (sort) {
+            case "username":
+                return MemberTeamDto::getUsername;
+            case "age":
+                return MemberTeamDto::getAge;
+            default:
+                throw new IllegalArgumentException("Unsupported keyset sort: " + sort);
+        }
     }
 
     private BooleanExpression ageBetween(int ageLoeCod, int ageGoeCod) {
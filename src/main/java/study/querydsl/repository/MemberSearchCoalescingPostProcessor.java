@@ -0,0 +1,111 @@
+package study.querydsl.repository;
+
+import lombok.EqualsAndHashCode;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.ReplicaRoutingContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.support.SearchCoalescer;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberRepository 프록시 맨 앞에 {@link SearchCoalescer} 를 붙인다.
+ * <p>
+ * 트랜잭션이 시작되기 전에 합쳐야 기다리는 호출이 커넥션을 잡고 있지 않는다.
+ * 호출한 쪽이 이미 트랜잭션 안이거나, 같은 요청에서 쓰기를 한 뒤라면(replica 지연 동안 primary 에서 읽어야 한다)
+ * 자기 변경을 봐야 하므로 합치지 않는다. 그 밖의 호출은 어느 replica 에서 읽어도 되므로 읽기 대상은 키에 넣지 않는다.
+ */
+@Component
+public class MemberSearchCoalescingPostProcessor implements BeanPostProcessor {
+
+    private static final Set<String> METHODS = new HashSet<>(Arrays.asList(
+            "search", "searchPageSimple", "searchPageComplex", "searchSlice", "searchColumns"));
+
+    private final ObjectProvider<SearchCoalescer> coalescer;
+
+    public MemberSearchCoalescingPostProcessor(ObjectProvider<SearchCoalescer> coalescer) {
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            RepositoryFactoryBeanSupport<?, ?, ?> factoryBean = (RepositoryFactoryBeanSupport<?, ?, ?>) bean;
+            if (MemberRepositoryCustom.class.isAssignableFrom(factoryBean.getObjectType())) {
+                factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                        (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0, new Interceptor())));
+            }
+        }
+        return bean;
+    }
+
+    private class Interceptor implements MethodInterceptor {
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (!isCoalescable(method)
+                    || TransactionSynchronizationManager.isActualTransactionActive()
+                    || ReplicaRoutingContext.hasWritten()) {
+                return invocation.proceed();
+            }
+
+            Object[] arguments = invocation.getArguments();
+            Key key = new Key(method.getName(), (MemberSearchCondition) arguments[0],
+                    arguments.length > 1 ? (Pageable) arguments[1] : null);
+            return coalescer.getObject().execute(method.getName(), key, () -> {
+                try {
+                    return invocation.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            });
+        }
+
+        private boolean isCoalescable(Method method) {
+            if (method.getDeclaringClass() != MemberRepositoryCustom.class || !METHODS.contains(method.getName())) {
+                return false;
+            }
+            Class<?>[] types = method.getParameterTypes();
+            return types[0] == MemberSearchCondition.class
+                    && (types.length == 1 || types.length == 2 && types[1] == Pageable.class);
+        }
+    }
+
+    /**
+     * 빈 문자열 조건은 조건 없음과 같게 본다. Pageable 은 page, size, sort 로 비교한다.
+     */
+    @EqualsAndHashCode
+    private static class Key {
+        private final String method;
+        private final String username;
+        private final String teamName;
+        private final Integer ageGoe;
+        private final Integer ageLoe;
+        private final Pageable pageable;
+
+        private Key(String method, MemberSearchCondition condition, Pageable pageable) {
+            this.method = method;
+            this.username = hasText(condition.getUsername()) ? condition.getUsername() : null;
+            this.teamName = hasText(condition.getTeamName()) ? condition.getTeamName() : null;
+            this.ageGoe = condition.getAgeGoe();
+            this.ageLoe = condition.getAgeLoe();
+            this.pageable = pageable;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.EntityChangedEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.DataChangedEvent;
+import study.querydsl.repository.support.TransactionCallbacks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member/team 을 메모리에 올려 두고 {@link MemberRepositoryCustom#search} 를 DB 대신 처리하는 인덱스.
+ * querydsl.search.source=index 일 때만 등록된다.
+ * <p>
+ * 조회용 구조(Snapshot)는 기본형 배열로 되어 있다. 나이는 정렬된 int[] 와 행 위치 순열, username 은 해시,
+ * 팀은 팀마다 BitSet 이다. 변경은 커밋된 뒤에 반영되고, Snapshot 은 변경이 있을 때 rebuildInterval 에 한 번만 다시 만든다.
+ * 그 사이의 조회는 이전 Snapshot 을 읽으므로 커밋된 변경이 최대 rebuildInterval 만큼 늦게 보인다.
+ * 엔티티 변경은 엔티티 리스너로 한 건씩 반영하고, 벌크 연산(execute())은 어떤 행이 바뀌었는지 알 수 없으므로 DB 에서 다시 읽는다.
+ * 다시 읽기는 한 스레드만 하고, 동시에 조회한 스레드는 그 결과를 기다린다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "querydsl.search", name = "source", havingValue = "index")
+public class MemberSearchIndex {
+
+    private static final long NO_TEAM = -1;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Object reloadLock = new Object();
+    private final Map<Long, Row> members = new TreeMap<>();
+    private final Map<Long, String> teams = new HashMap<>();
+    private final long rebuildIntervalNanos;
+    private volatile boolean stale = true;
+    private long changes;
+    private long loads;
+    private long builds;
+    private volatile Snapshot snapshot;
+    private volatile boolean dirty;
+    private volatile long builtAt;
+
+    public MemberSearchIndex(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                             @Value("${querydsl.search.index-rebuild-interval:1s}") Duration rebuildInterval) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildIntervalNanos = rebuildInterval.toNanos();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (reloadLock) {
+            loadFromDatabase();
+        }
+    }
+
+    private void loadFromDatabase() {
+        long start = System.nanoTime();
+        long changesBefore;
+        synchronized (this) {
+            changesBefore = changes;
+        }
+        List<Tuple> teamRows = readOnlyTransaction.execute(status -> queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .fetch());
+        List<Tuple> memberRows = readOnlyTransaction.execute(status -> queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .fetch());
+
+        synchronized (this) {
+            teams.clear();
+            for (Tuple row : teamRows) {
+                teams.put(row.get(team.id), row.get(team.name));
+            }
+            members.clear();
+            for (Tuple row : memberRows) {
+                Long teamId = row.get(member.team.id);
+                members.put(row.get(member.id), new Row(row.get(member.username), row.get(member.age),
+                        teamId != null ? teamId : NO_TEAM));
+            }
+            // 읽는 동안 커밋된 변경은 방금 읽은 결과에 빠졌을 수 있으므로 다음 조회에서 다시 읽는다.
+            stale = changes != changesBefore;
+            dirty = true;
+            loads++;
+        }
+        log.info("Member search index loaded: {} members, {} teams in {} ms",
+                memberRows.size(), teamRows.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return snapshot().search(condition);
+    }
+
+    public int size() {
+        return snapshot().ids.length;
+    }
+
+    /**
+     * DB 에서 다시 읽은 횟수. 테스트 확인용
+     */
+    synchronized long loads() {
+        return loads;
+    }
+
+    /**
+     * Snapshot 을 만든 횟수. 테스트 확인용
+     */
+    synchronized long builds() {
+        return builds;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        Runnable change;
+        if (event.isEntity(Member.class)) {
+            Member changed = (Member) event.getEntity();
+            Long id = changed.getId();
+            if (event.getType() == EntityChangedEvent.Type.REMOVE) {
+                change = () -> members.remove(id);
+            } else {
+                Row row = new Row(changed.getUsername(), changed.getAge(),
+                        changed.getTeam() != null ? changed.getTeam().getId() : NO_TEAM);
+                change = () -> members.put(id, row);
+            }
+        } else if (event.isEntity(Team.class)) {
+            Team changed = (Team) event.getEntity();
+            Long id = changed.getId();
+            String name = changed.getName();
+            change = event.getType() == EntityChangedEvent.Type.REMOVE
+                    ? () -> teams.remove(id)
+                    : () -> teams.put(id, name);
+        } else {
+            return;
+        }
+        afterCommit(change);
+    }
+
+    @EventListener
+    public void onDataChanged(DataChangedEvent event) {
+        if (event.isBulk() && event.isTable("member", "team")) {
+            afterCommit(() -> stale = true);
+        }
+    }
+
+    /**
+     * 트랜잭션 안의 변경은 모아 두었다가 커밋된 뒤 한 번에 반영한다.
+     */
+    private void afterCommit(Runnable change) {
+        List<Runnable> pending = TransactionCallbacks.<List<Runnable>>bindOnce(this, ArrayList::new,
+                committed -> new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        apply(committed);
+                    }
+                });
+        if (pending != null) {
+            pending.add(change);
+        } else {
+            apply(Collections.singletonList(change));
+        }
+    }
+
+    private synchronized void apply(List<Runnable> committed) {
+        committed.forEach(Runnable::run);
+        changes++;
+        dirty = true;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && !dueForRebuild()) {
+            return current;
+        }
+        if (isStale()) {
+            synchronized (reloadLock) {
+                // 기다리는 동안 다른 스레드가 이미 다시 읽었으면 그 결과를 쓴다.
+                if (isStale()) {
+                    loadFromDatabase();
+                }
+            }
+        }
+        synchronized (this) {
+            // 기다리는 동안 다른 스레드가 이미 만들었으면 그 결과를 쓴다.
+            if (snapshot == null || dueForRebuild()) {
+                dirty = false;
+                snapshot = new Snapshot(members, teams);
+                builtAt = System.nanoTime();
+                builds++;
+            }
+            return snapshot;
+        }
+    }
+
+    private boolean dueForRebuild() {
+        return (dirty || isStale()) && System.nanoTime() - builtAt >= rebuildIntervalNanos;
+    }
+
+    private boolean isStale() {
+        return stale;
+    }
+
+    private static class Row {
+        private final String username;
+        private final int age;
+        private final long teamId;
+
+        private Row(String username, int age, long teamId) {
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+        }
+    }
+
+    /**
+     * 한 시점의 읽기 전용 인덱스. 행 위치는 member id 오름차순이다.
+     */
+    private static class Snapshot {
+
+        private final long[] ids;
+        private final String[] usernames;
+        private final int[] ages;
+        private final long[] teamIds;
+        private final Map<Long, String> teamNames;
+
+        private final int[] sortedAges;
+        private final int[] ageOrder;
+        private final Map<String, int[]> byUsername = new HashMap<>();
+        private final Map<Long, BitSet> byTeam = new HashMap<>();
+
+        private Snapshot(Map<Long, Row> members, Map<Long, String> teams) {
+            int size = members.size();
+            ids = new long[size];
+            usernames = new String[size];
+            ages = new int[size];
+            teamIds = new long[size];
+            teamNames = new HashMap<>(teams);
+
+            Map<String, List<Integer>> usernamePositions = new HashMap<>();
+            int position = 0;
+            for (Map.Entry<Long, Row> entry : members.entrySet()) {
+                Row row = entry.getValue();
+                ids[position] = entry.getKey();
+                usernames[position] = row.username;
+                ages[position] = row.age;
+                teamIds[position] = row.teamId;
+                if (row.username != null) {
+                    usernamePositions.computeIfAbsent(row.username, k -> new ArrayList<>()).add(position);
+                }
+                if (row.teamId != NO_TEAM) {
+                    byTeam.computeIfAbsent(row.teamId, k -> new BitSet(size)).set(position);
+                }
+                position++;
+            }
+            usernamePositions.forEach((username, positions) ->
+                    byUsername.put(username, positions.stream().mapToInt(Integer::intValue).toArray()));
+
+            long[] ageAndPosition = new long[size];
+            for (int i = 0; i < size; i++) {
+                ageAndPosition[i] = ((long) ages[i] << 32) | i;
+            }
+            Arrays.sort(ageAndPosition);
+            sortedAges = new int[size];
+            ageOrder = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedAges[i] = (int) (ageAndPosition[i] >> 32);
+                ageOrder[i] = (int) ageAndPosition[i];
+            }
+        }
+
+        private List<MemberTeamDto> search(MemberSearchCondition condition) {
+            BitSet matches = new BitSet(ids.length);
+            matches.set(0, ids.length);
+
+            if (hasText(condition.getUsername())) {
+                BitSet byName = new BitSet(ids.length);
+                for (int position : byUsername.getOrDefault(condition.getUsername(), new int[0])) {
+                    byName.set(position);
+                }
+                matches.and(byName);
+            }
+            if (hasText(condition.getTeamName())) {
+                BitSet inTeam = new BitSet(ids.length);
+                teamNames.forEach((teamId, name) -> {
+                    if (condition.getTeamName().equals(name) && byTeam.containsKey(teamId)) {
+                        inTeam.or(byTeam.get(teamId));
+                    }
+                });
+                matches.and(inTeam);
+            }
+            if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+                int from = condition.getAgeGoe() != null ? lowerBound(condition.getAgeGoe()) : 0;
+                int to = condition.getAgeLoe() != null ? upperBound(condition.getAgeLoe()) : sortedAges.length;
+                BitSet inRange = new BitSet(ids.length);
+                for (int i = from; i < to; i++) {
+                    inRange.set(ageOrder[i]);
+                }
+                matches.and(inRange);
+            }
+
+            List<MemberTeamDto> result = new ArrayList<>(matches.cardinality());
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                Long teamId = teamIds[i] != NO_TEAM ? teamIds[i] : null;
+                result.add(new MemberTeamDto(ids[i], usernames[i], ages[i], teamId,
+                        teamId != null ? teamNames.get(teamId) : null));
+            }
+            return result;
+        }
+
+        /**
+         * age 이상인 첫 위치
+         */
+        private int lowerBound(int age) {
+            int low = 0;
+            int high = sortedAges.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedAges[mid] < age) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * age 보다 큰 첫 위치
+         */
+        private int upperBound(int age) {
+            int low = 0;
+            int high = sortedAges.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedAges[mid] <= age) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
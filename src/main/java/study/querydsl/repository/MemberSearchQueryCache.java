@@ -0,0 +1,345 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 조건의 모양(어떤 필터가 있는지 + 정렬)별로 JPQL 을 한 번만 만들어 두고,
+ * 이후 호출은 파라미터 값만 바인딩한다.
+ */
+@Component
+public class MemberSearchQueryCache {
+
+    private final EntityManager em;
+    private final Querydsl querydsl;
+    private final boolean queryCacheable;
+    private final Cache<Key, CompiledQuery> queries = Caffeine.newBuilder()
+            .maximumSize(256)
+            .build();
+
+    public MemberSearchQueryCache(EntityManager em,
+                                  @Value("${querydsl.search.query-cache:true}") boolean queryCacheable) {
+        this.em = em;
+        this.querydsl = new Querydsl(em, new PathBuilder<>(member.getType(), member.getMetadata()));
+        this.queryCacheable = queryCacheable;
+    }
+
+    public static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        for (Slot slot : Slot.values()) {
+            if (slot.isPresent(condition)) {
+                shape |= slot.bit;
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * 메트릭 태그 등에 쓰는 모양 이름. 예) "teamName+ageGoe", 필터가 없으면 "none"
+     */
+    public static String shapeName(MemberSearchCondition condition) {
+        StringJoiner name = new StringJoiner("+");
+        name.setEmptyValue("none");
+        for (Slot slot : Slot.values()) {
+            if (slot.isPresent(condition)) {
+                name.add(slot.parameter);
+            }
+        }
+        return name.toString();
+    }
+
+    public List<MemberTeamDto> fetch(MemberSearchCondition condition) {
+        return fetch(condition, Sort.unsorted(), 0, -1);
+    }
+
+    public List<MemberTeamDto> fetch(MemberSearchCondition condition, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return fetch(condition, pageable.getSort(), 0, -1);
+        }
+        return fetch(condition, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+    }
+
+    public List<MemberTeamDto> fetch(MemberSearchCondition condition, Sort sort, long offset, int limit) {
+        CompiledQuery compiled = queries.get(new Key(shapeOf(condition), sort, Kind.CONTENT), this::compile);
+        return toDtos(page(compiled.bind(condition), offset, limit).getResultList());
+    }
+
+    /**
+     * {@link #fetch(MemberSearchCondition, Sort, long, int)} 와 같은 쿼리지만 DTO 를 만들지 않고 행을 바로 열에 담는다.
+     */
+    public MemberColumns fetchColumns(MemberSearchCondition condition, Sort sort, long offset, int limit) {
+        CompiledQuery compiled = queries.get(new Key(shapeOf(condition), sort, Kind.CONTENT), this::compile);
+        return toColumns(page(compiled.bind(condition), offset, limit).getResultList());
+    }
+
+    /**
+     * 깊은 페이지용 2단계 조회. 먼저 필터 컬럼만으로 member.id 를 페이징하고,
+     * 그 id 들에 대해서만 team 을 조인해 DTO 를 만든 뒤 원래 순서로 되돌린다.
+     * 두 조회 사이에 삭제된 회원은 결과에서 빠지므로 페이지 크기보다 적게 돌려줄 수 있다.
+     */
+    public List<MemberTeamDto> fetchDeferred(MemberSearchCondition condition, Pageable pageable) {
+        return toDtos(deferredRows(condition, pageable));
+    }
+
+    /**
+     * {@link #fetchDeferred(MemberSearchCondition, Pageable)} 와 같은 2단계 조회로 열 단위 결과를 만든다.
+     */
+    public MemberColumns fetchColumnsDeferred(MemberSearchCondition condition, Pageable pageable) {
+        return toColumns(deferredRows(condition, pageable));
+    }
+
+    private List<Object[]> deferredRows(MemberSearchCondition condition, Pageable pageable) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : -1;
+        CompiledQuery idQuery = queries.get(new Key(shapeOf(condition), pageable.getSort(), Kind.IDS), this::compile);
+
+        @SuppressWarnings("unchecked")
+        List<Long> ids = page(idQuery.bind(condition), offset, limit).getResultList();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        CompiledQuery byIds = queries.get(new Key(0, Sort.unsorted(), Kind.BY_IDS), this::compile);
+        Query query = em.createQuery(byIds.jpql).setParameter("ids", ids);
+        Map<Long, Object[]> byId = new HashMap<>();
+        for (Object row : query.getResultList()) {
+            Object[] values = (Object[]) row;
+            byId.put((Long) values[0], values);
+        }
+
+        List<Object[]> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Object[] values = byId.get(id);
+            if (values != null) {
+                result.add(values);
+            }
+        }
+        return result;
+    }
+
+    public long fetchCount(MemberSearchCondition condition) {
+        CompiledQuery compiled = queries.get(new Key(shapeOf(condition), Sort.unsorted(), Kind.COUNT), this::compile);
+        return (Long) compiled.bind(condition).getSingleResult();
+    }
+
+    /**
+     * 조건 모양에 해당하는 content 쿼리의 JPQL. 실행 계획 확인용
+     */
+    String jpql(MemberSearchCondition condition) {
+        return queries.get(new Key(shapeOf(condition), Sort.unsorted(), Kind.CONTENT), this::compile).jpql;
+    }
+
+    /**
+     * 크기가 정해진 페이지만 Hibernate 쿼리 캐시에 올린다. 전체 결과는 캐시 항목 하나가 너무 커지고,
+     * count 는 {@link MemberCountCache} 가 따로 캐시한다.
+     */
+    private Query page(Query query, long offset, int limit) {
+        if (offset > 0) {
+            Assert.isTrue(offset <= Integer.MAX_VALUE, () -> "Offset is too large: " + offset);
+            query.setFirstResult((int) offset);
+        }
+        if (limit >= 0) {
+            query.setMaxResults(limit);
+            if (queryCacheable) {
+                // member/team 이 변경(벌크 연산 포함)되면 Hibernate 가 결과를 무효화한다.
+                query.setHint(QueryHints.CACHEABLE, true);
+            }
+        }
+        return query;
+    }
+
+    private MemberColumns toColumns(List<?> rows) {
+        MemberColumns.Builder columns = MemberColumns.builder(rows.size());
+        for (Object row : rows) {
+            Object[] values = (Object[]) row;
+            columns.add((Long) values[0], (String) values[1], (Integer) values[2],
+                    (Long) values[3], (String) values[4]);
+        }
+        return columns.build();
+    }
+
+    private List<MemberTeamDto> toDtos(List<?> rows) {
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] values = (Object[]) row;
+            result.add(new MemberTeamDto((Long) values[0], (String) values[1], (Integer) values[2],
+                    (Long) values[3], (String) values[4]));
+        }
+        return result;
+    }
+
+    private CompiledQuery compile(Key key) {
+        List<Slot> slots = new ArrayList<>();
+        List<BooleanExpression> predicates = new ArrayList<>();
+        for (Slot slot : Slot.values()) {
+            if ((key.shape & slot.bit) != 0) {
+                slots.add(slot);
+                predicates.add(slot.predicate());
+            }
+        }
+
+        JPAQuery<?> query;
+        switch (key.kind) {
+            case COUNT:
+                query = new JPAQuery<>().select(member.count());
+                break;
+            case IDS:
+                query = new JPAQuery<>().select(member.id);
+                break;
+            default:
+                query = new JPAQuery<>().select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        member.team.id.as("teamId"),
+                        member.team.name.as("teamName")
+                ));
+        }
+
+        query.from(member);
+        // 팀 이름으로 거르면 팀 없는 회원은 어차피 빠지므로 inner join 으로 team.name 인덱스부터 탈 수 있게 한다.
+        // id 만 뽑을 때는 팀 이름으로 거를 때만 team 을 조인한다.
+        if (slots.contains(Slot.TEAM_NAME)) {
+            query.join(member.team, team);
+        } else if (key.kind != Kind.IDS) {
+            query.leftJoin(member.team, team);
+        }
+        if (key.kind == Kind.BY_IDS) {
+            query.where(Expressions.booleanTemplate("{0} in (:ids)", member.id));
+        } else {
+            query.where(predicates.toArray(new BooleanExpression[0]));
+        }
+        if (key.kind == Kind.CONTENT || key.kind == Kind.IDS) {
+            querydsl.applySorting(key.sort, query);
+        }
+
+        return new CompiledQuery(query.toString(), Collections.unmodifiableList(slots));
+    }
+
+    private enum Kind {
+        CONTENT, COUNT, IDS, BY_IDS
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+        private final int shape;
+        private final Sort sort;
+        private final Kind kind;
+
+        private Key(int shape, Sort sort, Kind kind) {
+            this.shape = shape;
+            this.sort = sort;
+            this.kind = kind;
+        }
+    }
+
+    private class CompiledQuery {
+        private final String jpql;
+        private final List<Slot> slots;
+
+        private CompiledQuery(String jpql, List<Slot> slots) {
+            this.jpql = jpql;
+            this.slots = slots;
+        }
+
+        private Query bind(MemberSearchCondition condition) {
+            Query query = em.createQuery(jpql);
+            for (Slot slot : slots) {
+                query.setParameter(slot.parameter, slot.value(condition));
+            }
+            return query;
+        }
+    }
+
+    private enum Slot {
+        USERNAME(1, "username") {
+            @Override
+            BooleanExpression predicate() {
+                return member.username.eq(Expressions.stringTemplate(":username"));
+            }
+
+            @Override
+            Object value(MemberSearchCondition condition) {
+                return hasText(condition.getUsername()) ? condition.getUsername() : null;
+            }
+        },
+        TEAM_NAME(2, "teamName") {
+            @Override
+            BooleanExpression predicate() {
+                return team.name.eq(Expressions.stringTemplate(":teamName"));
+            }
+
+            @Override
+            Object value(MemberSearchCondition condition) {
+                return hasText(condition.getTeamName()) ? condition.getTeamName() : null;
+            }
+        },
+        AGE_GOE(4, "ageGoe") {
+            @Override
+            BooleanExpression predicate() {
+                return member.age.goe(Expressions.numberTemplate(Integer.class, ":ageGoe"));
+            }
+
+            @Override
+            Object value(MemberSearchCondition condition) {
+                return condition.getAgeGoe();
+            }
+        },
+        AGE_LOE(8, "ageLoe") {
+            @Override
+            BooleanExpression predicate() {
+                return member.age.loe(Expressions.numberTemplate(Integer.class, ":ageLoe"));
+            }
+
+            @Override
+            Object value(MemberSearchCondition condition) {
+                return condition.getAgeLoe();
+            }
+        };
+
+        private final int bit;
+        private final String parameter;
+
+        Slot(int bit, String parameter) {
+            this.bit = bit;
+            this.parameter = parameter;
+        }
+
+        boolean isPresent(MemberSearchCondition condition) {
+            return value(condition) != null;
+        }
+
+        abstract BooleanExpression predicate();
+
+        abstract Object value(MemberSearchCondition condition);
+    }
+}
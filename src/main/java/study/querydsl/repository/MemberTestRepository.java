@@ -4,10 +4,13 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.Cursor;
+import study.querydsl.repository.support.CursorSlice;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
@@ -19,8 +22,11 @@ import static study.querydsl.entity.QTeam.team;
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-    public MemberTestRepository() {
+    private final MemberCountCache countCache;
+
+    public MemberTestRepository(MemberCountCache countCache) {
         super(Member.class);
+        this.countCache = countCache;
     }
 
     public List<Member> basicSelect() {
@@ -61,6 +67,36 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                                 ageGoe(condition.getAgeGoe()),
                                 ageLoe(condition.getAgeLoe())
                         ),
+                () -> countCache.get(condition, counted(() -> select(member.count())
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+                        .fetchOne())));
+    }
+
+    public Slice<Member> applySlice(MemberSearchCondition condition, Pageable pageable) {
+        return applySlice(pageable, query -> query.selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                ));
+    }
+
+    public Page<Member> applyPaginationConcurrently(MemberSearchCondition condition, Pageable pageable) {
+        return applyPaginationConcurrently(pageable,
+                contentQuery -> contentQuery.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        ),
                 countQuery -> countQuery.select(member.count())
                         .from(member)
                         .leftJoin(member.team, team)
@@ -71,6 +107,17 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                         ));
     }
 
+    public CursorSlice<Member> applyKeyset(MemberSearchCondition condition, Cursor cursor, int size) {
+        return applyKeyset(cursor, size, member.id, Member::getId,
+                query -> query.selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        ));
+    }
+
     private BooleanExpression usernameEq(String usernameCod) {
         return hasText(usernameCod) ? member.username.eq(usernameCod) : null;
     }
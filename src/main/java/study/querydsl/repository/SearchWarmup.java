@@ -0,0 +1,138 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.support.Cursor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static study.querydsl.repository.MemberSearchQueryCache.shapeName;
+
+/**
+ * 배포 직후 첫 요청이 느리지 않도록, 준비 완료(readiness) 전에 검색 경로를 미리 실행한다.
+ * <p>
+ * ApplicationReadyEvent 는 ApplicationRunner 가 모두 끝난 뒤 발행되므로 그때까지 readiness 는 REFUSING_TRAFFIC 이다.
+ * 16 가지 조건 모양 모두를 search, searchPageSimple, searchPageComplex(deferred join 포함), slice, 열 단위,
+ * 팀별 회원 조회(DTO 프로젝션)로 읽기 전용 트랜잭션에서 실행해 HQL 계획 캐시, Querydsl 직렬화, 프로젝션 코드를 데운다.
+ * 조건 값은 아무 행에도 맞지 않게 하고 한 건만 요청한다.
+ * 한 모양이라도 실패하면 데우지 못한 경로로 트래픽을 받지 않도록 기동을 실패시킨다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "querydsl.warmup", name = "enabled", havingValue = "true")
+public class SearchWarmup implements ApplicationRunner {
+
+    private static final int SHAPES = 16;
+    private static final String NO_MATCH = "__search_warmup__";
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final MemberSearchQueryCache searchQueryCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int iterations;
+    private final int deferredJoinOffset;
+    private volatile Map<String, Long> lastWarmed = Collections.emptyMap();
+
+    public SearchWarmup(MemberRepository memberRepository, TeamRepository teamRepository,
+                        MemberSearchQueryCache searchQueryCache, PlatformTransactionManager transactionManager,
+                        @Value("${querydsl.warmup.iterations:10}") int iterations,
+                        @Value("${querydsl.pagination.deferred-join-offset:1000}") int deferredJoinOffset) {
+        this.memberRepository = memberRepository;
+        this.teamRepository = teamRepository;
+        this.searchQueryCache = searchQueryCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.iterations = iterations;
+        this.deferredJoinOffset = deferredJoinOffset;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Map<String, Long> warmed = warmUp();
+        if (warmed.size() < SHAPES) {
+            throw new IllegalStateException("Search warm-up failed for " + (SHAPES - warmed.size())
+                    + " of " + SHAPES + " condition shapes");
+        }
+    }
+
+    /**
+     * 마지막으로 끝난 {@link #warmUp()} 의 결과. 아직 실행 전이면 비어 있다.
+     */
+    public Map<String, Long> lastWarmed() {
+        return lastWarmed;
+    }
+
+    /**
+     * @return 조건 모양 이름별 마지막 반복의 소요 시간(ns)
+     */
+    public Map<String, Long> warmUp() {
+        long start = System.nanoTime();
+        Map<String, Long> warmed = new LinkedHashMap<>();
+        for (int shape = 0; shape < SHAPES; shape++) {
+            MemberSearchCondition condition = condition(shape);
+            String name = shapeName(condition);
+            try {
+                long first = 0;
+                long last = 0;
+                for (int i = 0; i < iterations; i++) {
+                    long iterationStart = System.nanoTime();
+                    readOnlyTransaction.executeWithoutResult(status -> warmUp(condition));
+                    last = System.nanoTime() - iterationStart;
+                    if (i == 0) {
+                        first = last;
+                    }
+                }
+                warmed.put(name, last);
+                log.info("Search warm-up {}: first {} ms, last {} ms ({} iterations)",
+                        name, first / 1_000_000.0, last / 1_000_000.0, iterations);
+            } catch (RuntimeException e) {
+                log.warn("Search warm-up {} failed", name, e);
+            }
+        }
+        log.info("Search warm-up finished: {} of {} shapes in {} ms",
+                warmed.size(), SHAPES, (System.nanoTime() - start) / 1_000_000);
+        lastWarmed = Collections.unmodifiableMap(warmed);
+        return warmed;
+    }
+
+    private void warmUp(MemberSearchCondition condition) {
+        Pageable first = PageRequest.of(0, 1);
+        if (MemberSearchQueryCache.shapeOf(condition) != 0) {
+            memberRepository.search(condition);
+        } else {
+            // 조건이 없으면 search 는 전체를 읽으므로 같은 JPQL 을 한 건만 실행한다.
+            searchQueryCache.fetch(condition, Sort.unsorted(), 0, 1);
+        }
+        memberRepository.searchPageSimple(condition, first);
+        memberRepository.searchPageComplex(condition, first);
+        memberRepository.searchPageComplex(condition, PageRequest.of(deferredJoinOffset, 1));
+        memberRepository.searchSlice(condition, first);
+        memberRepository.searchSlice(condition, Cursor.first(), 1);
+        memberRepository.searchColumns(condition, first);
+        teamRepository.findTeamsWithMembers(condition, first);
+    }
+
+    /**
+     * shape 의 비트(MemberSearchQueryCache 의 Slot 순서)에 해당하는 필터만 채운 조건
+     */
+    private static MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername((shape & 1) != 0 ? NO_MATCH : null);
+        condition.setTeamName((shape & 2) != 0 ? NO_MATCH : null);
+        condition.setAgeGoe((shape & 4) != 0 ? Integer.MAX_VALUE : null);
+        condition.setAgeLoe((shape & 8) != 0 ? Integer.MIN_VALUE : null);
+        return condition;
+    }
+}
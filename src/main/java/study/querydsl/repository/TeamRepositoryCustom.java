@@ -0,0 +1,17 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamMembersDto;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TeamRepositoryCustom {
+
+    List<TeamMembersDto> findTeamsWithMembers(Collection<Long> teamIds);
+
+    Page<TeamMembersDto> findTeamsWithMembers(MemberSearchCondition condition, Pageable pageable);
+
+}
@@ -0,0 +1,117 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberDtoProjection;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀을 먼저 조회(페이징)한 뒤 그 팀들의 회원을 IN 쿼리 한 번으로 가져와 메모리에서 묶는다.
+ * fetch join 과 달리 페이징이 가능하고, 팀 수와 무관하게 쿼리는 최대 3번(팀, count, 회원)이다.
+ */
+public class TeamRepositoryImpl extends QuerydslRepositorySupport implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamRepositoryImpl(EntityManager em) {
+        super(Team.class);
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Override
+    public List<TeamMembersDto> findTeamsWithMembers(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Tuple> teams = queryFactory.select(team.id, team.name)
+                .from(team)
+                .where(team.id.in(teamIds))
+                .orderBy(team.id.asc())
+                .fetch();
+
+        return withMembers(teams, new MemberSearchCondition());
+    }
+
+    /**
+     * teamName 으로 팀을 거르고, username/ageGoe/ageLoe 는 각 팀의 회원 목록에만 적용한다.
+     */
+    @Override
+    public Page<TeamMembersDto> findTeamsWithMembers(MemberSearchCondition condition, Pageable pageable) {
+        JPQLQuery<Tuple> teamQuery = from(team)
+                .where(teamNameEq(condition.getTeamName()))
+                .select(team.id, team.name);
+        List<Tuple> teams = getQuerydsl().applyPagination(pageable, teamQuery).fetch();
+
+        JPAQuery<Long> countQuery = queryFactory.select(team.count())
+                .from(team)
+                .where(teamNameEq(condition.getTeamName()));
+
+        return PageableExecutionUtils.getPage(withMembers(teams, condition), pageable, countQuery::fetchOne);
+    }
+
+    private List<TeamMembersDto> withMembers(List<Tuple> teams, MemberSearchCondition condition) {
+        List<Long> teamIds = new ArrayList<>(teams.size());
+        for (Tuple tuple : teams) {
+            teamIds.add(tuple.get(team.id));
+        }
+
+        Map<Long, List<MemberDto>> members = teamIds.isEmpty()
+                ? Collections.emptyMap()
+                : queryFactory.from(member)
+                .where(member.team.id.in(teamIds),
+                        usernameEq(condition.getUsername()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .transform(groupBy(member.team.id).as(list(new MemberDtoProjection(member.username, member.age))));
+
+        List<TeamMembersDto> result = new ArrayList<>(teams.size());
+        for (Tuple tuple : teams) {
+            Long teamId = tuple.get(team.id);
+            result.add(new TeamMembersDto(teamId, tuple.get(team.name),
+                    members.getOrDefault(teamId, Collections.emptyList())));
+        }
+        return result;
+    }
+
+    private BooleanExpression usernameEq(String usernameCod) {
+        return hasText(usernameCod) ? member.username.eq(usernameCod) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamNameCod) {
+        return hasText(teamNameCod) ? team.name.eq(teamNameCod) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoeCod) {
+        return ageGoeCod != null ? member.age.goe(ageGoeCod) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoeCod) {
+        return ageLoeCod != null ? member.age.loe(ageLoeCod) : null;
+    }
+}
@@ -0,0 +1,295 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.EntityChangedEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.DataChangedEvent;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * team_stats 를 회원 변경에 맞춰 증분으로 갱신한다.
+ * <p>
+ * 엔티티 리스너 이벤트로 팀별 변화량(회원 수, 나이 합, 새 최소/최대 나이)을 트랜잭션 단위로 모아 두었다가
+ * 커밋 직전(마지막 flush 뒤) 같은 커넥션으로 팀마다 UPDATE 한 번씩 반영한다. 나이가 빠진 팀은 최소/최대만
+ * (team_id, age) 인덱스로 다시 구한다.
+ * <p>
+ * 벌크 연산(execute())은 어떤 행이 바뀌었는지 알 수 없으므로, 호출하는 쪽이 벌크 연산 전에 {@link #recomputeOnCommit}
+ * 으로 바뀔 수 있는 팀을 알려 주면 그 팀만 member 테이블에서 다시 계산한다.
+ * 알려 주지 않은 벌크 연산은 {@link TeamStatsReconciler} 가 다음 주기에 바로잡는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "querydsl.team-stats", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TeamStatsMaintainer {
+
+    private static final String ADD = "update team_stats"
+            + " set member_count = member_count + ?, age_sum = age_sum + ?,"
+            + " min_age = case when min_age is null or min_age > ? then cast(? as integer) else min_age end,"
+            + " max_age = case when max_age is null or max_age < ? then cast(? as integer) else max_age end"
+            + " where team_id = ?";
+
+    private static final String SUBTRACT = "update team_stats"
+            + " set member_count = member_count + ?, age_sum = age_sum + ?,"
+            + " min_age = (select min(m.age) from member m where m.team_id = ?),"
+            + " max_age = (select max(m.age) from member m where m.team_id = ?)"
+            + " where team_id = ?";
+
+    private static final String INSERT_MISSING = "insert into team_stats (team_id, member_count, age_sum, min_age, max_age)"
+            + " select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)"
+            + " from team t left join member m on m.team_id = t.team_id"
+            + " where t.team_id = ? and not exists (select 1 from team_stats s where s.team_id = t.team_id)"
+            + " group by t.team_id";
+
+    private static final String RECOMPUTE = "update team_stats"
+            + " set member_count = (select count(*) from member m where m.team_id = ?),"
+            + " age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = ?),"
+            + " min_age = (select min(m.age) from member m where m.team_id = ?),"
+            + " max_age = (select max(m.age) from member m where m.team_id = ?)"
+            + " where team_id = ? and exists (select 1 from team t where t.team_id = ?)";
+
+    private static final String DELETE = "delete from team_stats where team_id = ?";
+
+    private static final String DUPLICATE_KEY = "23505";
+
+    private final EntityManager em;
+
+    public TeamStatsMaintainer(EntityManager em) {
+        this.em = em;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isEntity(Member.class)) {
+            Member changed = (Member) event.getEntity();
+            Long teamId = changed.getTeam() != null ? changed.getTeam().getId() : null;
+            if (event.getType() == EntityChangedEvent.Type.UPDATE
+                    && Objects.equals(changed.getPersistedTeamId(), teamId)
+                    && Objects.equals(changed.getPersistedAge(), changed.getAge())) {
+                return;
+            }
+            Changes changes = changes();
+            if (event.getType() != EntityChangedEvent.Type.PERSIST && changed.getPersistedAge() != null) {
+                changes.subtract(changed.getPersistedTeamId(), changed.getPersistedAge());
+            }
+            if (event.getType() != EntityChangedEvent.Type.REMOVE) {
+                changes.add(teamId, changed.getAge());
+            }
+        } else if (event.isEntity(Team.class)) {
+            Team changed = (Team) event.getEntity();
+            if (event.getType() == EntityChangedEvent.Type.PERSIST) {
+                changes().touch(changed.getId());
+            } else if (event.getType() == EntityChangedEvent.Type.REMOVE) {
+                changes().remove(changed.getId());
+            }
+        }
+    }
+
+    @EventListener
+    public void onDataChanged(DataChangedEvent event) {
+        if (event.isBulk() && event.isTable("member", "team")) {
+            changes().bulk = true;
+        }
+    }
+
+    /**
+     * 현재 트랜잭션의 벌크 연산이 바꿀 수 있는 팀(바뀌기 전 팀과 바뀐 뒤 팀)을 알린다. 커밋 직전에 이 팀들만 다시 계산한다.
+     * 트랜잭션 안에서 호출해야 한다.
+     */
+    public void recomputeOnCommit(Collection<Long> teamIds) {
+        Changes changes = changes();
+        for (Long teamId : teamIds) {
+            if (teamId != null) {
+                changes.recomputed.add(teamId);
+            }
+        }
+    }
+
+    /**
+     * 지정한 팀의 통계를 member 테이블에서 다시 계산한다. 없는 팀이면 지우기만 한다. 트랜잭션 안에서 호출해야 한다.
+     */
+    public void recompute(Collection<Long> teamIds) {
+        em.unwrap(SessionImplementor.class).doWork(connection -> {
+            for (Long teamId : new TreeSet<>(teamIds)) {
+                recompute(connection, teamId);
+            }
+        });
+    }
+
+    /**
+     * 현재 트랜잭션(세션)의 변화량. 처음 호출될 때 커밋 직전에 반영하도록 Hibernate 에 등록한다.
+     * REQUIRES_NEW 로 바깥 트랜잭션이 보류되어도 섞이지 않도록 세션을 키로 쓴다.
+     */
+    private Changes changes() {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(session);
+        if (changes != null) {
+            return changes;
+        }
+
+        Changes created = new Changes();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.bindResource(session, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(session);
+                }
+            });
+        }
+        session.getActionQueue().registerProcess(
+                (SessionImplementor completing) -> completing.doWork(connection -> apply(connection, created)));
+        return created;
+    }
+
+    private void apply(Connection connection, Changes changes) throws SQLException {
+        if (changes.bulk && changes.recomputed.isEmpty()) {
+            log.warn("Bulk member/team change without recomputeOnCommit; team_stats is repaired by the next reconciliation");
+        }
+
+        for (Long teamId : changes.removedTeams) {
+            update(connection, DELETE, teamId);
+        }
+        // 다시 계산하는 팀은 flush 된 엔티티 변경까지 member 테이블에 반영되어 있으므로 증분은 버린다.
+        for (Long teamId : changes.recomputed) {
+            if (!changes.removedTeams.contains(teamId)) {
+                recompute(connection, teamId);
+            }
+        }
+        for (Map.Entry<Long, Delta> entry : changes.teams.entrySet()) {
+            Long teamId = entry.getKey();
+            Delta delta = entry.getValue();
+            if (changes.removedTeams.contains(teamId) || changes.recomputed.contains(teamId)) {
+                continue;
+            }
+
+            SqlUpdate increment;
+            if (delta.subtracted) {
+                increment = () -> update(connection, SUBTRACT, delta.count, delta.ageSum, teamId, teamId, teamId);
+            } else if (delta.minAge != null) {
+                increment = () -> update(connection, ADD, delta.count, delta.ageSum,
+                        delta.minAge, delta.minAge, delta.maxAge, delta.maxAge, teamId);
+            } else {
+                increment = () -> 0;
+            }
+            if (increment.run() == 0) {
+                // 통계 행이 없던 팀(새 팀이나 통계 도입 전 팀)은 이미 flush 된 member 로 처음부터 계산한다.
+                insertMissing(connection, teamId, increment);
+            }
+        }
+    }
+
+    /**
+     * 통계 행을 지우지 않고 그 자리에서 다시 계산해, 같은 팀을 증분 갱신하는 다른 트랜잭션이 행 잠금을 기다리게 한다.
+     * 행이 없거나 팀이 없어졌으면 지운 뒤 (팀이 있을 때만) 새로 넣는다.
+     */
+    private static void recompute(Connection connection, Long teamId) throws SQLException {
+        if (update(connection, RECOMPUTE, teamId, teamId, teamId, teamId, teamId, teamId) == 0) {
+            update(connection, DELETE, teamId);
+            insertMissing(connection, teamId,
+                    () -> update(connection, RECOMPUTE, teamId, teamId, teamId, teamId, teamId, teamId));
+        }
+    }
+
+    /**
+     * 통계 행을 처음부터 계산해 넣는다. 같은 팀의 첫 행을 다른 트랜잭션이 먼저 넣어 기본 키가 겹치면
+     * 그 INSERT 만 되돌리고 fallback 으로 이미 있는 행을 갱신해, 정상적인 회원 변경이 롤백되지 않게 한다.
+     * 실패한 문장이 트랜잭션 전체를 망가뜨리는 DB 도 있으므로 세이브포인트로 되돌린다.
+     */
+    private static void insertMissing(Connection connection, Long teamId, SqlUpdate fallback) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            update(connection, INSERT_MISSING, teamId);
+        } catch (SQLException e) {
+            if (!DUPLICATE_KEY.equals(e.getSQLState())) {
+                throw e;
+            }
+            connection.rollback(savepoint);
+            log.debug("team_stats row for team {} was inserted concurrently; updating it instead", teamId);
+            fallback.run();
+            return;
+        }
+        connection.releaseSavepoint(savepoint);
+    }
+
+    private static int update(Connection connection, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlUpdate {
+        int run() throws SQLException;
+    }
+
+    private static class Changes {
+        // 팀 id 순서로 갱신해 동시에 커밋하는 트랜잭션끼리 서로 다른 순서로 행을 잠그지 않게 한다.
+        private final Map<Long, Delta> teams = new TreeMap<>();
+        private final Set<Long> removedTeams = new HashSet<>();
+        private final Set<Long> recomputed = new TreeSet<>();
+        private boolean bulk;
+
+        private void add(Long teamId, int age) {
+            if (teamId != null) {
+                teams.computeIfAbsent(teamId, id -> new Delta()).add(age);
+            }
+        }
+
+        private void subtract(Long teamId, int age) {
+            if (teamId != null) {
+                teams.computeIfAbsent(teamId, id -> new Delta()).subtract(age);
+            }
+        }
+
+        private void touch(Long teamId) {
+            teams.computeIfAbsent(teamId, id -> new Delta());
+        }
+
+        private void remove(Long teamId) {
+            removedTeams.add(teamId);
+        }
+    }
+
+    private static class Delta {
+        private long count;
+        private long ageSum;
+        private Integer minAge;
+        private Integer maxAge;
+        private boolean subtracted;
+
+        private void add(int age) {
+            count++;
+            ageSum += age;
+            minAge = minAge == null ? age : Math.min(minAge, age);
+            maxAge = maxAge == null ? age : Math.max(maxAge, age);
+        }
+
+        private void subtract(int age) {
+            count--;
+            ageSum -= age;
+            subtracted = true;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.TeamStats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * team_stats 를 실제 집계 쿼리(team left join member group by team)와 비교하고, 다른 팀만 다시 계산한다.
+ * 주기적으로 실행되며, 증분 갱신이 빠뜨린 변경(SQL 로 직접 고친 데이터 등)을 바로잡는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "querydsl.team-stats", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TeamStatsReconciler {
+
+    public static final String MISMATCHES = "team.stats.reconcile.mismatches";
+
+    private final JPAQueryFactory queryFactory;
+    private final TeamStatsMaintainer maintainer;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter mismatches;
+
+    public TeamStatsReconciler(JPAQueryFactory queryFactory, TeamStatsMaintainer maintainer,
+                               PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.queryFactory = queryFactory;
+        this.maintainer = maintainer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mismatches = Counter.builder(MISMATCHES).register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${querydsl.team-stats.reconcile-interval:PT10M}",
+            fixedDelayString = "${querydsl.team-stats.reconcile-interval:PT10M}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * @return 통계가 틀려서 다시 계산한 팀 id
+     */
+    public List<Long> reconcile() {
+        return transactionTemplate.execute(status -> {
+            Map<Long, TeamStats> view = new HashMap<>();
+            for (TeamStats stats : queryFactory.selectFrom(teamStats).fetch()) {
+                view.put(stats.getTeamId(), stats);
+            }
+
+            List<Tuple> actual = queryFactory
+                    .select(team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                    .from(team)
+                    .leftJoin(team.members, member)
+                    .groupBy(team.id)
+                    .fetch();
+
+            List<Long> mismatched = new ArrayList<>();
+            for (Tuple row : actual) {
+                Long teamId = row.get(team.id);
+                TeamStats stats = view.remove(teamId);
+                // JPQL sum(int) 은 Long 이다.
+                Number ageSum = row.get(2, Number.class);
+                if (stats == null
+                        || stats.getMemberCount() != row.get(member.count())
+                        || stats.getAgeSum() != (ageSum != null ? ageSum.longValue() : 0)
+                        || !Objects.equals(stats.getMinAge(), row.get(member.age.min()))
+                        || !Objects.equals(stats.getMaxAge(), row.get(member.age.max()))) {
+                    log.warn("Team stats mismatch: teamId={}, view={}, actual={}", teamId, stats, row);
+                    mismatched.add(teamId);
+                }
+            }
+            // 남은 것은 이미 없어진 팀의 통계
+            for (TeamStats orphan : view.values()) {
+                log.warn("Team stats for missing team: {}", orphan);
+                mismatched.add(orphan.getTeamId());
+            }
+
+            if (!mismatched.isEmpty()) {
+                maintainer.recompute(mismatched);
+                mismatches.increment(mismatched.size());
+            }
+            log.info("Team stats reconciled: {} teams checked, {} repaired", actual.size(), mismatched.size());
+            return mismatched;
+        });
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.querydsl.entity.TeamStats;
+
+/**
+ * 팀 통계 조회. 갱신은 {@link TeamStatsMaintainer} 만 한다.
+ */
+public interface TeamStatsRepository extends JpaRepository<TeamStats, Long>, TeamStatsRepositoryCustom {
+}
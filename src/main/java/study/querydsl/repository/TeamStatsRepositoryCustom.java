@@ -0,0 +1,13 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.TeamStatsDto;
+
+import java.util.List;
+
+public interface TeamStatsRepositoryCustom {
+
+    List<TeamStatsDto> findAllStats();
+
+    List<TeamStatsDto> findStatsByTeamName(String teamName);
+
+}
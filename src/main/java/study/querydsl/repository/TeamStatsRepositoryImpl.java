@@ -0,0 +1,50 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.dto.QTeamStatsDto;
+import study.querydsl.dto.TeamStatsDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * team.name 으로 groupBy 하는 집계 쿼리 대신 team_stats 를 팀 id 로 조인해 읽는다.
+ */
+public class TeamStatsRepositoryImpl implements TeamStatsRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamStatsRepositoryImpl(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Override
+    public List<TeamStatsDto> findAllStats() {
+        return findStats(null);
+    }
+
+    @Override
+    public List<TeamStatsDto> findStatsByTeamName(String teamName) {
+        return findStats(team.name.eq(teamName));
+    }
+
+    private List<TeamStatsDto> findStats(BooleanExpression predicate) {
+        return queryFactory
+                .select(new QTeamStatsDto(
+                        teamStats.teamId,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.minAge,
+                        teamStats.maxAge))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .where(predicate)
+                .orderBy(team.name.asc(), team.id.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,155 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 count 쿼리를 content 쿼리와 겹쳐 실행하기 위한 제한된 크기의 스레드 풀
+ * <p>
+ * count 쿼리는 바로 보내지 않는다. count-delay 가 지나도 content 쿼리가 끝나지 않았을 때만 작업 스레드에서 시작한다.
+ * content 쿼리가 먼저 끝나면 count 가 필요할 때만({@link PendingCount#await()}) 호출한 스레드에서 실행하므로,
+ * 빠른 쿼리는 커넥션을 하나만 쓰고 마지막 페이지의 count 는 실행되지 않는다.
+ * <p>
+ * 작업 스레드의 count 쿼리는 새 읽기 전용 트랜잭션에서 실행된다. 즉 호출한 쪽과 다른 EntityManager, 다른 커넥션을
+ * 사용하므로 호출한 트랜잭션에서 아직 커밋되지 않은 변경은 보이지 않는다.
+ * 호출한 스레드에서 실행되면(큐가 가득 찼거나 시작 전에 필요해진 경우) 호출한 트랜잭션에 참여한다.
+ * 이미 시작된 count 쿼리는 JDBC 문장을 멈출 수 없으므로 필요 없어져도 끝까지 실행된다.
+ */
+@Component
+public class CountQueryExecutor implements DisposableBean {
+
+    public static final String EXECUTIONS = "repository.pagination.count.executions";
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration delay;
+    private final Duration timeout;
+    private final Counter workerExecutions;
+    private final Counter callerExecutions;
+
+    public CountQueryExecutor(PlatformTransactionManager transactionManager, MeterRegistry registry,
+                              @Value("${querydsl.pagination.count-threads:4}") int threads,
+                              @Value("${querydsl.pagination.count-queue-capacity:100}") int queueCapacity,
+                              @Value("${querydsl.pagination.count-delay:50ms}") Duration delay,
+                              @Value("${querydsl.pagination.count-timeout:10s}") Duration timeout) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("count-query-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.scheduler = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("count-query-delay-"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.delay = delay;
+        this.timeout = timeout;
+        this.workerExecutions = Counter.builder(EXECUTIONS).tag("thread", "worker").register(registry);
+        this.callerExecutions = Counter.builder(EXECUTIONS).tag("thread", "caller").register(registry);
+    }
+
+    /**
+     * count-delay 뒤에 작업 스레드에서 시작하도록 예약한다. 결과가 필요하면 {@link PendingCount#await()},
+     * 필요 없으면 {@link PendingCount#cancel()} 을 반드시 호출해야 한다.
+     */
+    public PendingCount submit(LongSupplier countQuery) {
+        PendingCount pending = new PendingCount(countQuery);
+        pending.trigger = scheduler.schedule(() -> start(pending), delay.toNanos(), TimeUnit.NANOSECONDS);
+        return pending;
+    }
+
+    private void start(PendingCount pending) {
+        try {
+            executor.execute(() -> {
+                if (!pending.claim()) {
+                    return;
+                }
+                workerExecutions.increment();
+                try {
+                    pending.result.complete(readOnlyTransaction.execute(status -> pending.countQuery.getAsLong()));
+                } catch (Throwable e) {
+                    pending.result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 큐가 가득 차면 시작하지 않는다. 필요해지면 호출한 스레드에서 실행된다.
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 예약된 count 쿼리. 작업 스레드와 호출한 스레드 중 먼저 가져간 쪽에서 한 번만 실행된다.
+     */
+    public class PendingCount {
+
+        private final LongSupplier countQuery;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private ScheduledFuture<?> trigger;
+
+        private PendingCount(LongSupplier countQuery) {
+            this.countQuery = countQuery;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * 아직 시작 전이면 호출한 스레드에서 실행하고, 이미 시작했으면 count-timeout 까지 기다린다.
+         */
+        public long await() {
+            if (claim()) {
+                trigger.cancel(false);
+                callerExecutions.increment();
+                return countQuery.getAsLong();
+            }
+            try {
+                return result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new QueryTimeoutException("Count query did not finish in " + timeout, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for count query", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * count 가 필요 없다. 아직 시작 전이면 실행하지 않는다.
+         */
+        public void cancel() {
+            if (claim()) {
+                trigger.cancel(false);
+            }
+        }
+    }
+}
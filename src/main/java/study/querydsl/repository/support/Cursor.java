@@ -0,0 +1,95 @@
+package study.querydsl.repository.support;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Keyset(seek) 페이징 위치. (정렬 컬럼 값, id) 를 불투명한 토큰으로 주고받는다.
+ */
+@Getter
+@EqualsAndHashCode
+public final class Cursor {
+
+    private static final String NEXT = "N";
+    private static final String PREV = "P";
+    private static final String DELIMITER = "|";
+
+    private final boolean previous;
+    private final String sort;
+    private final Long id;
+    private final String value;
+
+    private Cursor(boolean previous, String sort, Long id, String value) {
+        this.previous = previous;
+        this.sort = hasText(sort) ? sort : null;
+        this.id = id;
+        this.value = value;
+    }
+
+    public static Cursor first() {
+        return first(null);
+    }
+
+    public static Cursor first(String sort) {
+        return new Cursor(false, sort, null, null);
+    }
+
+    public static Cursor after(String sort, Object value, Long id) {
+        Assert.notNull(id, "Cursor id must not be null!");
+        return new Cursor(false, sort, id, value != null ? value.toString() : null);
+    }
+
+    public static Cursor before(String sort, Object value, Long id) {
+        Assert.notNull(id, "Cursor id must not be null!");
+        return new Cursor(true, sort, id, value != null ? value.toString() : null);
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    @JsonValue
+    public String encode() {
+        String raw = (previous ? PREV : NEXT) + DELIMITER
+                + (sort != null ? sort : "") + DELIMITER
+                + (id != null ? id : "") + DELIMITER
+                + (value != null ? value : "");
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        Assert.hasText(token, "Cursor token must not be empty!");
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor token: " + token, e);
+        }
+
+        String[] parts = raw.split("\\" + DELIMITER, 4);
+        if (parts.length != 4 || !(NEXT.equals(parts[0]) || PREV.equals(parts[0]))) {
+            throw new IllegalArgumentException("Invalid cursor token: " + token);
+        }
+
+        try {
+            Long id = hasText(parts[2]) ? Long.valueOf(parts[2]) : null;
+            String value = hasText(parts[1]) ? parts[3] : null;
+            return new Cursor(PREV.equals(parts[0]), parts[1], id, value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor token: " + token, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
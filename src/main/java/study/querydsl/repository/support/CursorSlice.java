@@ -0,0 +1,30 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Keyset 페이징 결과. 다음/이전 페이지가 없으면 해당 커서는 null 이다.
+ */
+@Getter
+public class CursorSlice<T> {
+
+    private final List<T> content;
+    private final Cursor next;
+    private final Cursor previous;
+
+    public CursorSlice(List<T> content, Cursor next, Cursor previous) {
+        this.content = content;
+        this.next = next;
+        this.previous = previous;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    public boolean hasPrevious() {
+        return previous != null;
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hibernate 가 실행하는 모든 DML 을 보고 {@link DataChangedEvent} 를 발행한다.
+ * 엔티티 저장뿐 아니라 벌크 연산(execute()) 처럼 영속성 컨텍스트를 거치지 않는 변경도 잡아낸다.
+ */
+public class DataChangeStatementInspector implements StatementInspector {
+
+    private static final Pattern DML = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into)\\s+\"?(\\w+)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final ApplicationEventPublisher publisher;
+
+    public DataChangeStatementInspector(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Matcher matcher = DML.matcher(sql);
+        if (matcher.find()) {
+            publisher.publishEvent(new DataChangedEvent(matcher.group(1), !FlushTracker.isFlushing()));
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+
+/**
+ * member, team 등의 테이블에 insert/update/delete SQL 이 실행되었음을 알리는 이벤트
+ */
+@Getter
+public class DataChangedEvent {
+
+    private final String table;
+
+    /**
+     * flush 밖에서 실행된 DML(JPQL/Querydsl execute(), 네이티브 쿼리). 엔티티 리스너가 호출되지 않는다.
+     */
+    private final boolean bulk;
+
+    public DataChangedEvent(String table) {
+        this(table, false);
+    }
+
+    public DataChangedEvent(String table, boolean bulk) {
+        this.table = table;
+        this.bulk = bulk;
+    }
+
+    public boolean isTable(String... tables) {
+        for (String name : tables) {
+            if (name.equalsIgnoreCase(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * 현재 스레드가 Hibernate flush 중인지 기록한다.
+ * 엔티티 저장/수정/삭제 SQL 은 flush 중에만 실행되므로, flush 밖에서 실행된 DML 은 벌크 연산이다.
+ * <p>
+ * hibernate.session.events.auto 로 세션마다 생성된다.
+ */
+public class FlushTracker extends BaseSessionEventListener {
+
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    public static boolean isFlushing() {
+        return DEPTH.get()[0] > 0;
+    }
+
+    @Override
+    public void flushStart() {
+        enter();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        exit();
+    }
+
+    /**
+     * 쿼리 실행 전 자동 flush
+     */
+    @Override
+    public void partialFlushStart() {
+        enter();
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        exit();
+    }
+
+    private void enter() {
+        DEPTH.get()[0]++;
+    }
+
+    private void exit() {
+        int[] depth = DEPTH.get();
+        if (depth[0] > 0) {
+            depth[0]--;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.JPQLQuery;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * offset 대신 (정렬 컬럼, id) 조건으로 다음 페이지를 찾는 keyset(seek) 페이징.
+ * 정렬 컬럼은 null 이 없어야 하며, id 로 동순위를 구분한다.
+ */
+public abstract class KeysetExecutionUtils {
+
+    private KeysetExecutionUtils() {
+    }
+
+    public static <T> CursorSlice<T> getSlice(JPQLQuery<T> query, Cursor cursor, int size,
+                                              NumberPath<Long> id, Function<T, Long> idValue) {
+        return getSlice(query, cursor, size, null, null, id, idValue);
+    }
+
+    public static <T> CursorSlice<T> getSlice(JPQLQuery<T> query, Cursor cursor, int size,
+                                              ComparableExpressionBase<?> sortKey, Function<T, ?> sortValue,
+                                              NumberPath<Long> id, Function<T, Long> idValue) {
+        Assert.notNull(cursor, "Cursor must not be null!");
+        Assert.isTrue(size > 0, "Size must be greater than zero!");
+        Assert.isTrue(sortKey == null || sortValue != null, "Sort value must be given with sort key!");
+
+        boolean backward = cursor.isPrevious();
+        if (!cursor.isFirst()) {
+            query.where(seek(cursor, sortKey, id));
+        }
+        if (sortKey != null) {
+            query.orderBy(backward ? sortKey.desc() : sortKey.asc());
+        }
+        query.orderBy(backward ? id.desc() : id.asc());
+
+        List<T> rows = query.limit(size + 1).fetch();
+        boolean more = rows.size() > size;
+        List<T> content = new ArrayList<>(more ? rows.subList(0, size) : rows);
+        if (backward) {
+            Collections.reverse(content);
+        }
+
+        boolean hasNext = backward ? !cursor.isFirst() : more;
+        boolean hasPrevious = backward ? more : !cursor.isFirst();
+        if (content.isEmpty()) {
+            return new CursorSlice<>(content, null, null);
+        }
+
+        String sort = sortKey != null ? cursor.getSort() : null;
+        T first = content.get(0);
+        T last = content.get(content.size() - 1);
+        Cursor next = hasNext ? Cursor.after(sort, valueOf(sortValue, last), idValue.apply(last)) : null;
+        Cursor previous = hasPrevious ? Cursor.before(sort, valueOf(sortValue, first), idValue.apply(first)) : null;
+        return new CursorSlice<>(content, next, previous);
+    }
+
+    private static BooleanExpression seek(Cursor cursor, ComparableExpressionBase<?> sortKey, NumberPath<Long> id) {
+        boolean backward = cursor.isPrevious();
+        BooleanExpression afterId = backward ? id.lt(cursor.getId()) : id.gt(cursor.getId());
+        if (sortKey == null) {
+            return afterId;
+        }
+
+        Assert.notNull(cursor.getValue(), "Cursor has no value for sort key " + cursor.getSort());
+        Expression<?> value = Expressions.constant(
+                DefaultConversionService.getSharedInstance().convert(cursor.getValue(), sortKey.getType()));
+        return Expressions.booleanOperation(backward ? Ops.LT : Ops.GT, sortKey, value)
+                .or(Expressions.booleanOperation(Ops.EQ, sortKey, value).and(afterId));
+    }
+
+    private static <T> Object valueOf(Function<T, ?> sortValue, T row) {
+        return sortValue != null ? sortValue.apply(row) : null;
+    }
+}
@@ -2,12 +2,15 @@ package study.querydsl.repository.support;
 
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -15,11 +18,14 @@ import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -33,10 +39,14 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private CountQueryExecutor countQueryExecutor;
+    private RepositoryMetrics metrics;
+    private final String repositoryName;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
         this.domainClass = domainClass;
+        this.repositoryName = ClassUtils.getUserClass(getClass()).getSimpleName();
     }
 
     @Autowired
@@ -52,6 +62,16 @@ public abstract class Querydsl4RepositorySupport {
         this.queryFactory = new JPAQueryFactory(entityManager);
     }
 
+    @Autowired
+    public void setCountQueryExecutor(CountQueryExecutor countQueryExecutor) {
+        this.countQueryExecutor = countQueryExecutor;
+    }
+
+    @Autowired
+    public void setMetrics(RepositoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
@@ -73,30 +93,120 @@ public abstract class Querydsl4RepositorySupport {
     }
 
     protected <T> JPAQuery<T> select(Expression<T> expr) {
+        if (metrics != null) {
+            metrics.queryCreated(repositoryName, "select");
+        }
         return getQueryFactory().select(expr);
     }
 
     protected <T> JPAQuery<T> selectFrom(EntityPath<T> from) {
+        if (metrics != null) {
+            metrics.queryCreated(repositoryName, "selectFrom");
+        }
         return getQueryFactory().selectFrom(from);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
-        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaQuery).fetch();
-        return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+        return recorded("applyPagination", () -> {
+            JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+            List<T> content = getQuerydsl().applyPagination(pageable,
+                    jpaQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable,
+                    counted(jpaQuery::fetchCount));
+        });
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
-        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable,
-                countResult::fetchCount);
+        return recorded("applyPagination", () -> {
+            JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+            List<T> content = getQuerydsl().applyPagination(pageable,
+                    jpaContentQuery).fetch();
+            JPAQuery countResult = countQuery.apply(getQueryFactory());
+            return PageableExecutionUtils.getPage(content, pageable,
+                    counted(countResult::fetchCount));
+        });
+    }
+
+    /**
+     * content 쿼리가 오래 걸리면 count 쿼리를 동시에 실행한다.
+     * count 쿼리는 {@link CountQueryExecutor} 가 content 쿼리보다 count-delay 늦게 별도 읽기 전용 트랜잭션으로 시작한다.
+     * 그 전에 content 가 끝나면 count 는 필요할 때만 호출한 스레드에서 실행되므로 마지막 페이지에서는 생략된다.
+     */
+    protected <T> Page<T> applyPaginationConcurrently(Pageable pageable,
+                                                      Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                                      Function<JPAQueryFactory, JPAQuery> countQuery) {
+        Assert.notNull(countQueryExecutor, "CountQueryExecutor must not be null!");
+        return recorded("applyPaginationConcurrently", () -> {
+            CountQueryExecutor.PendingCount total =
+                    countQueryExecutor.submit(() -> countQuery.apply(getQueryFactory()).fetchCount());
+            try {
+                JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+                List<T> content = getQuerydsl().applyPagination(pageable,
+                        jpaContentQuery).fetch();
+                return PageableExecutionUtils.getPage(content, pageable, counted(total::await));
+            } finally {
+                total.cancel();
+            }
+        });
+    }
+
+    protected <T> Page<T> applyPagination(Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery, LongSupplier total) {
+        return recorded("applyPagination", () -> {
+            JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+            List<T> content = getQuerydsl().applyPagination(pageable,
+                    jpaContentQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable, total);
+        });
+    }
+
+    /**
+     * pageSize + 1 건을 조회해 다음 페이지가 있는지만 판단한다. count 쿼리는 실행하지 않는다.
+     */
+    protected <T> Slice<T> applySlice(Pageable pageable,
+                                      Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        return recorded("applySlice", () -> {
+            JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+            getQuerydsl().applySorting(pageable.getSort(), jpaQuery);
+            if (pageable.isPaged()) {
+                jpaQuery.offset(pageable.getOffset())
+                        .limit(SliceExecutionUtils.probeLimit(pageable));
+            }
+            List<T> rows = jpaQuery.fetch();
+            return SliceExecutionUtils.getSlice(rows, pageable);
+        });
+    }
+
+    protected <T> CursorSlice<T> applyKeyset(Cursor cursor, int size,
+                                             NumberPath<Long> id, Function<T, Long> idValue,
+                                             Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
+        return applyKeyset(cursor, size, null, null, id, idValue, contentQuery);
+    }
+
+    protected <T> CursorSlice<T> applyKeyset(Cursor cursor, int size,
+                                             ComparableExpressionBase<?> sortKey, Function<T, ?> sortValue,
+                                             NumberPath<Long> id, Function<T, Long> idValue,
+                                             Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
+        JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+        return KeysetExecutionUtils.getSlice(jpaQuery, cursor, size, sortKey, sortValue, id, idValue);
+    }
+
+    private <R> R recorded(String method, Supplier<R> invocation) {
+        return metrics != null ? metrics.record(repositoryName, method, "unknown", invocation) : invocation.get();
+    }
+
+    /**
+     * count 쿼리가 실제로 실행될 때 메트릭에 표시되도록 감싼다.
+     */
+    protected LongSupplier counted(LongSupplier countQuery) {
+        return () -> {
+            if (metrics != null) {
+                metrics.markCountQuery();
+            }
+            return countQuery.getAsLong();
+        };
     }
 }
@@ -0,0 +1,120 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberColumns;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 레포지토리 조회 메서드의 실행 시간, 반환 건수, count 쿼리 실행 여부를 Micrometer 로 기록한다.
+ * <p>
+ * 태그 값은 모두 개수가 제한된 값(메서드 이름, 검색 조건 모양, 건수 구간)만 사용한다.
+ */
+@Component
+public class RepositoryMetrics {
+
+    public static final String SEARCH_TIMER = "repository.search";
+    public static final String SEARCH_ROWS = "repository.search.rows";
+    public static final String COUNT_QUERIES = "repository.search.count.queries";
+    public static final String QUERIES_CREATED = "repository.query.created";
+
+    private static final ThreadLocal<Invocation> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+
+    public RepositoryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T record(String repository, String method, String shape, Supplier<T> invocation) {
+        Invocation previous = CURRENT.get();
+        Invocation current = new Invocation();
+        CURRENT.set(current);
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        T result = null;
+        try {
+            result = invocation.get();
+            outcome = "success";
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+
+            long rows = rows(result);
+            registry.timer(SEARCH_TIMER, Tags.of(
+                    "repository", repository,
+                    "method", method,
+                    "shape", shape,
+                    "rows", bucket(rows),
+                    "count", String.valueOf(current.countQuery),
+                    "outcome", outcome
+            )).record(elapsed, TimeUnit.NANOSECONDS);
+            registry.summary(SEARCH_ROWS, "repository", repository, "method", method).record(rows);
+        }
+    }
+
+    /**
+     * 현재 기록 중인 호출에서 count 쿼리가 실제로 실행되었음을 표시한다.
+     */
+    public void markCountQuery() {
+        Invocation invocation = CURRENT.get();
+        if (invocation != null) {
+            invocation.countQuery = true;
+            registry.counter(COUNT_QUERIES).increment();
+        }
+    }
+
+    public void queryCreated(String repository, String type) {
+        registry.counter(QUERIES_CREATED, "repository", repository, "type", type).increment();
+    }
+
+    private long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof CursorSlice) {
+            return ((CursorSlice<?>) result).getContent().size();
+        }
+        if (result instanceof MemberColumns) {
+            return ((MemberColumns) result).size();
+        }
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        return 0;
+    }
+
+    private String bucket(long rows) {
+        if (rows == 0) {
+            return "0";
+        }
+        if (rows <= 10) {
+            return "1-10";
+        }
+        if (rows <= 100) {
+            return "11-100";
+        }
+        if (rows <= 1000) {
+            return "101-1000";
+        }
+        return ">1000";
+    }
+
+    private static class Invocation {
+        private boolean countQuery;
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키로 동시에 들어온 조회를 한 번만 실행하고 결과(또는 예외)를 나눠 준다(single-flight).
+ * <p>
+ * 먼저 온 호출이 자기 스레드에서 실행하고, 그동안 들어온 호출은 그 결과를 기다린다.
+ * 실행이 끝나면 키를 바로 지우므로 완료 이후의 호출은 다시 실행된다. 즉 캐시가 아니다.
+ * 나눠 받는 결과는 같은 객체이므로 호출한 쪽에서 수정하면 안 된다.
+ * 기다리는 호출은 coalescing-timeout 까지만 기다리고 {@link QueryTimeoutException} 으로 끝난다.
+ */
+@Component
+public class SearchCoalescer {
+
+    public static final String COALESCED = "repository.search.coalesced";
+    public static final String IN_FLIGHT = "repository.search.inflight";
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final Duration timeout;
+
+    public SearchCoalescer(MeterRegistry registry,
+                           @Value("${querydsl.search.coalescing:true}") boolean enabled,
+                           @Value("${querydsl.search.coalescing-timeout:10s}") Duration timeout) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.timeout = timeout;
+        Gauge.builder(IN_FLIGHT, inFlight, ConcurrentMap::size).register(registry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String method, Object key, Supplier<T> invocation) {
+        if (!enabled) {
+            return invocation.get();
+        }
+
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            registry.counter(COALESCED, "method", method).increment();
+            return (T) await(existing);
+        }
+
+        try {
+            T result = invocation.get();
+            inFlight.remove(key, created);
+            created.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Coalesced search did not finish in " + timeout, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for coalesced search", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.repository.support;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * count 쿼리 없이 pageSize + 1 건을 조회해 다음 페이지가 있는지만 판단하는 Slice 페이징.
+ */
+public abstract class SliceExecutionUtils {
+
+    private SliceExecutionUtils() {
+    }
+
+    /**
+     * 한 건 더 조회할 limit. 페이징하지 않으면 -1
+     */
+    public static int probeLimit(Pageable pageable) {
+        return pageable.isPaged() ? pageable.getPageSize() + 1 : -1;
+    }
+
+    /**
+     * {@link #probeLimit(Pageable)} 로 조회한 결과에서 마지막 한 건을 떼어 내고 Slice 로 만든다.
+     */
+    public static <T> Slice<T> getSlice(List<T> rows, Pageable pageable) {
+        if (pageable.isUnpaged() || rows.size() <= pageable.getPageSize()) {
+            return new SliceImpl<>(rows, pageable, false);
+        }
+        return new SliceImpl<>(new ArrayList<>(rows.subList(0, pageable.getPageSize())), pageable, true);
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl.repository.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * DML 마다 같은 콜백을 등록하지 않도록, 트랜잭션마다 한 번만 TransactionSynchronization 을 등록한다.
+ * <p>
+ * 등록 여부는 key 로 묶은 리소스로 표시한다. REQUIRES_NEW 로 트랜잭션이 보류되면 리소스도 풀었다가 재개될 때 다시 묶으므로,
+ * 안쪽 트랜잭션은 자기 콜백을 따로 등록한다.
+ */
+public abstract class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * 현재 트랜잭션에 key 로 묶인 상태. 처음 호출되면 state 로 만들어 묶고 callbacks 를 등록한다.
+     *
+     * @return 트랜잭션 동기화가 없으면 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T bindOnce(Object key, Supplier<T> state, Function<T, TransactionSynchronization> callbacks) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        T bound = (T) TransactionSynchronizationManager.getResource(key);
+        if (bound != null) {
+            return bound;
+        }
+
+        T created = state.get();
+        TransactionSynchronizationManager.bindResource(key, created);
+        TransactionSynchronizationManager.registerSynchronization(new Bound(key, created, callbacks.apply(created)));
+        return created;
+    }
+
+    /**
+     * 현재 트랜잭션이 끝날 때(커밋이든 롤백이든) callback 을 한 번 실행한다.
+     *
+     * @return 트랜잭션 동기화가 없어 등록하지 못했으면 false
+     */
+    public static boolean afterCompletionOnce(Object key, Runnable callback) {
+        return bindOnce(key, () -> Boolean.TRUE, registered -> new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.run();
+            }
+        }) != null;
+    }
+
+    private static class Bound implements TransactionSynchronization {
+
+        private final Object key;
+        private final Object state;
+        private final TransactionSynchronization delegate;
+
+        private Bound(Object key, Object state, TransactionSynchronization delegate) {
+            this.key = key;
+            this.state = state;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(key);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(key, state);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            delegate.beforeCommit(readOnly);
+        }
+
+        @Override
+        public void afterCommit() {
+            delegate.afterCommit();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            delegate.afterCompletion(status);
+        }
+    }
+}
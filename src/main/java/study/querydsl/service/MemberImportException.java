@@ -0,0 +1,29 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.Getter;
+
+/**
+ * 회원 가져오기가 중간에 실패했다. committedRows 건은 이미 커밋되었으므로
+ * 입력의 line 번째 줄부터 다시 보내면 이어서 가져올 수 있다.
+ */
+@Getter
+public class MemberImportException extends RuntimeException {
+
+    private final long line;
+    private final long committedRows;
+
+    public MemberImportException(long line, long committedRows, Throwable cause) {
+        super("Member import failed at line " + line + " after " + committedRows + " committed rows: "
+                + cause.getMessage(), cause);
+        this.line = line;
+        this.committedRows = committedRows;
+    }
+
+    /**
+     * 입력 행을 읽지 못해 실패했는지. 아니면 저장 중에 실패했다.
+     */
+    public boolean isMalformedRow() {
+        return getCause() instanceof IllegalArgumentException || getCause() instanceof JsonProcessingException;
+    }
+}
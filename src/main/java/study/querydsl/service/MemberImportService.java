@@ -0,0 +1,194 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * CSV(username,age,teamName) 또는 NDJSON 으로 들어오는 회원을 chunkSize 건씩 나눠 저장한다.
+ * chunk 마다 트랜잭션을 따로 커밋하고 영속성 컨텍스트를 비우므로 입력 크기와 무관하게 메모리 사용량이 일정하다.
+ * CSV 의 첫 줄은 헤더({@value #CSV_HEADER}, 대소문자 무시)와 같을 때만 건너뛴다.
+ * 실패하면 {@link MemberImportException} 에 실패한 줄 번호와 이미 커밋된 건수가 담긴다.
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    private static final String CSV_HEADER = "username,age,teamName";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public MemberImportService(EntityManager em, JPAQueryFactory queryFactory,
+                               PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                               @Value("${querydsl.import.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public MemberImportResult importCsv(InputStream in) throws IOException {
+        return importMembers(in, true);
+    }
+
+    public MemberImportResult importNdjson(InputStream in) throws IOException {
+        return importMembers(in, false);
+    }
+
+    private MemberImportResult importMembers(InputStream in, boolean csv) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, Long> teamIds = new HashMap<>();
+        List<MemberImportRow> chunk = new ArrayList<>(chunkSize);
+
+        long start = System.nanoTime();
+        long rows = 0;
+        long chunks = 0;
+        long totalChunkNanos = 0;
+        long maxChunkNanos = 0;
+
+        String line;
+        long lineNumber = 0;
+        long chunkFirstLine = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (csv && lineNumber == 1 && CSV_HEADER.equalsIgnoreCase(line.trim())) {
+                continue;
+            }
+            if (!hasText(line)) {
+                continue;
+            }
+
+            try {
+                chunk.add(csv ? parseCsv(line) : objectMapper.readValue(line, MemberImportRow.class));
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                throw new MemberImportException(lineNumber, rows, e);
+            }
+            if (chunk.size() == 1) {
+                chunkFirstLine = lineNumber;
+            }
+            if (chunk.size() == chunkSize) {
+                long elapsed = writeChunk(chunk, teamIds, chunkFirstLine, rows);
+                rows += chunk.size();
+                chunks++;
+                totalChunkNanos += elapsed;
+                maxChunkNanos = Math.max(maxChunkNanos, elapsed);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            long elapsed = writeChunk(chunk, teamIds, chunkFirstLine, rows);
+            rows += chunk.size();
+            chunks++;
+            totalChunkNanos += elapsed;
+            maxChunkNanos = Math.max(maxChunkNanos, elapsed);
+        }
+
+        MemberImportResult result = new MemberImportResult(rows, chunks, System.nanoTime() - start,
+                totalChunkNanos, maxChunkNanos);
+        log.info("member import finished: rows={}, chunks={}, rows/sec={}, avgChunkMillis={}, maxChunkMillis={}",
+                result.getRows(), result.getChunks(), result.getRowsPerSecond(),
+                result.getAvgChunkMillis(), result.getMaxChunkMillis());
+        return result;
+    }
+
+    private long writeChunk(List<MemberImportRow> chunk, Map<String, Long> teamIds, long firstLine, long committedRows) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (MemberImportRow row : chunk) {
+                    Member member = new Member(row.getUsername(), row.getAge());
+                    if (hasText(row.getTeamName())) {
+                        // changeTeam 은 프록시를 초기화하므로 연관관계 주인 쪽만 설정한다.
+                        member.setTeam(em.getReference(Team.class, teamId(row.getTeamName(), teamIds)));
+                    }
+                    em.persist(member);
+                }
+                em.flush();
+                em.clear();
+            });
+        } catch (RuntimeException e) {
+            throw new MemberImportException(firstLine, committedRows, e);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        log.debug("member import chunk: rows={}, millis={}", chunk.size(), elapsed / 1_000_000.0);
+        return elapsed;
+    }
+
+    private Long teamId(String teamName, Map<String, Long> teamIds) {
+        return teamIds.computeIfAbsent(teamName, name -> {
+            Long id = queryFactory.select(team.id)
+                    .from(team)
+                    .where(team.name.eq(name))
+                    .fetchFirst();
+            if (id != null) {
+                return id;
+            }
+
+            Team newTeam = new Team(name);
+            em.persist(newTeam);
+            return newTeam.getId();
+        });
+    }
+
+    private MemberImportRow parseCsv(String line) {
+        List<String> values = new ArrayList<>(3);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+
+        if (values.size() < 2) {
+            throw new IllegalArgumentException("Invalid member csv row: " + line);
+        }
+        return new MemberImportRow(values.get(0).trim(), Integer.parseInt(values.get(1).trim()),
+                values.size() > 2 ? values.get(2).trim() : null);
+    }
+}
@@ -0,0 +1,102 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import study.querydsl.config.BufferingStartupInitializer;
+import study.querydsl.config.StartupTimelineReport;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * local,fast 프로필 기동. fast 프로필은 스키마를 검증(ddl-auto: validate)만 하므로
+ * 이 테스트만 쓰는 DB 에 먼저 스키마를 만들어 두고 기동한다.
+ */
+@SpringBootTest(properties = FastStartupTest.DATASOURCE_URL)
+@ContextConfiguration(initializers = BufferingStartupInitializer.class)
+@ActiveProfiles({"local", "fast"})
+@AutoConfigureMockMvc
+class FastStartupTest {
+
+    static final String DATASOURCE_URL = "spring.datasource.url=jdbc:h2:mem:fast-startup;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    ConfigurableApplicationContext context;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    StartupTimelineReport startupTimelineReport;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeAll
+    static void prepareSchema() {
+        // 테스트 설정(ddl-auto: create)으로 한 번 띄웠다 내려 스키마만 남긴다.
+        new SpringApplicationBuilder(QuerydslApplication.class)
+                .properties(DATASOURCE_URL, "server.port=0")
+                .run()
+                .close();
+    }
+
+    @Test
+    @DisplayName("Lazy initialization keeps scheduled beans eager")
+    void test1() throws Exception {
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+
+        assertThat(context.getEnvironment().getProperty("spring.jpa.hibernate.ddl-auto")).isEqualTo("validate");
+        assertThat(beanFactory.getBeanDefinition("teamStatsReconciler").isLazyInit()).isFalse();
+        assertThat(beanFactory.containsSingleton("teamStatsReconciler")).isTrue();
+        assertThat(beanFactory.getBeanDefinition("memberSearchQueryCache").isLazyInit()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Sample members are seeded after startup")
+    void test2() throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (memberRepository.count() < 100 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(memberRepository.count()).isEqualTo(100);
+        assertThat(teamRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Startup steps are recorded for the startup endpoint and the slowest-bean report")
+    void test3() throws Exception {
+        mockMvc.perform(get("/actuator/startup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.timeline.events", not(empty())));
+
+        List<StartupTimeline.TimelineEvent> slowest = startupTimelineReport.slowestBeans();
+        assertThat(slowest).isNotEmpty().hasSizeLessThanOrEqualTo(20)
+                .allMatch(event -> "spring.beans.instantiate".equals(event.getStartupStep().getName()))
+                .isSortedAccordingTo(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed());
+    }
+}
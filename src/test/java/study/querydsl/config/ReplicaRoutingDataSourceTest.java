@@ -0,0 +1,109 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * primary/replica 를 서로 다른 H2 메모리 DB 로 띄운다.
+ * replica 에는 primary 의 스키마만 복사하고 replica 에만 있는 데이터를 넣어 어느 쪽에서 읽었는지 구분한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=3",
+        "querydsl.datasource.routing.enabled=true",
+        "querydsl.datasource.routing.replica-lag-window=1m",
+        "querydsl.datasource.routing.replicas[0].url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "querydsl.datasource.routing.replicas[0].username=sa",
+        "querydsl.search.query-cache=false"
+})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    HikariDataSource primaryDataSource;
+
+    @BeforeEach
+    void beforeEach() {
+        JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "sa", ""));
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", ""));
+        replica.execute("drop all objects");
+        for (String ddl : primary.queryForList("script nodata", String.class)) {
+            replica.execute(ddl);
+        }
+        replica.update("insert into team (team_id, name) values (1000, 'replicaTeam')");
+        replica.update("insert into member (member_id, username, age, team_id) values (1000, 'replicaMember', 10, 1000)");
+
+        ReplicaRoutingContext.clear();
+    }
+
+    @Test
+    @DisplayName("Read-only repository calls are served by the replica")
+    void test1() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("replicaTeam");
+
+        assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("replicaMember");
+    }
+
+    @Test
+    @DisplayName("Reads right after a write on the same thread go to the primary")
+    void test2() throws Exception {
+        memberJpaRepository.save(new Member("primaryMember", 20));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("primaryMember");
+        assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("primaryMember");
+
+        ReplicaRoutingContext.clear();
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Writes outside a request stop pinning reads to the primary when their transaction ends")
+    void test3() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<String> usernames = executor.submit(() -> {
+                memberJpaRepository.save(new Member("backgroundMember", 30));
+                assertThat(ReplicaRoutingContext.hasWritten()).isFalse();
+
+                MemberSearchCondition condition = new MemberSearchCondition();
+                condition.setTeamName("replicaTeam");
+                return memberJpaRepository.search(condition).stream()
+                        .map(MemberTeamDto::getUsername)
+                        .collect(Collectors.toList());
+            }).get(10, TimeUnit.SECONDS);
+
+            assertThat(usernames).containsExactly("replicaMember");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("The primary pool is configured by spring.datasource.hikari")
+    void test4() throws Exception {
+        assertThat(primaryDataSource.getPoolName()).isEqualTo("primary");
+        assertThat(primaryDataSource.getMaximumPoolSize()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncSearchExecutorTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    AsyncSearchExecutor executor = new AsyncSearchExecutor(registry, 1, 1, Duration.ofSeconds(3));
+    CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("A full queue rejects immediately and is counted")
+    void test1() throws Exception {
+        CompletableFuture<String> running = executor.submit(this::blocked);
+        CompletableFuture<String> queued = executor.submit(this::blocked);
+
+        assertThatThrownBy(() -> executor.submit(this::blocked))
+                .isInstanceOf(SearchRejectedException.class)
+                .extracting("retryAfter").isEqualTo(Duration.ofSeconds(3));
+        assertThat(registry.get(AsyncSearchExecutor.REJECTED).counter().count()).isEqualTo(1);
+        assertThat(registry.get(AsyncSearchExecutor.QUEUE_DEPTH).gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get()).isEqualTo("done");
+        assertThat(queued.get()).isEqualTo("done");
+    }
+
+    private String blocked() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
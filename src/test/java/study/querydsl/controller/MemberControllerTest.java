@@ -0,0 +1,141 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+import study.querydsl.dto.MemberColumnsCodec;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberDataVersion;
+import study.querydsl.repository.support.Cursor;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberDataVersion dataVersion;
+
+    @Test
+    @DisplayName("Invalid keyset cursor or sort is a bad request")
+    void test1() throws Exception {
+        mockMvc.perform(get("/v4/members").param("cursor", "not a cursor!"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("sort", "teamName"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("cursor", Cursor.after("age", "abc", 1L).encode()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Keyset page size is capped")
+    void test2() throws Exception {
+        Team team = new Team("keysetCapTeam");
+        em.persist(team);
+        for (int i = 0; i < 101; i++) {
+            em.persist(new Member("keysetCap" + i, i, team));
+        }
+        em.flush();
+
+        mockMvc.perform(get("/v4/members").param("teamName", "keysetCapTeam").param("size", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(100)))
+                .andExpect(jsonPath("$.next", notNullValue()));
+    }
+
+    @Test
+    @DisplayName("Search responses are not modified until the data changes")
+    void test3() throws Exception {
+        Team team = new Team("etagTeam");
+        em.persist(team);
+        em.persist(new Member("etag1", 10, team));
+        em.flush();
+
+        assertNotModifiedUntilChanged(get("/v2/members").param("teamName", "etagTeam"), team);
+        assertNotModifiedUntilChanged(get("/v3/members").param("teamName", "etagTeam"), team);
+        assertNotModifiedUntilChanged(get("/v3/members").param("teamName", "etagTeam")
+                .accept(MemberColumnsCodec.MEDIA_TYPE), team);
+    }
+
+    @Test
+    @DisplayName("Disabled search ETags never answer not modified")
+    void test4() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v2/members");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+
+        SearchETags disabled = new SearchETags(dataVersion, false);
+
+        assertThat(disabled.checkNotModified(new ServletWebRequest(request), "v2",
+                new MemberSearchCondition(), PageRequest.of(0, 20))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Batch search with a null condition is a bad request")
+    void test5() throws Exception {
+        mockMvc.perform(post("/members/search:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"teamName\": \"teamA\"}, null]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("A page beyond the largest offset is a bad request")
+    void test6() throws Exception {
+        for (String path : new String[]{"/v2/members", "/v3/members", "/members/slice"}) {
+            mockMvc.perform(get(path).param("page", "2000000").param("size", "2000"))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/v3/members").param("page", "2000000").param("size", "2000")
+                        .accept(MemberColumnsCodec.MEDIA_TYPE))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void assertNotModifiedUntilChanged(MockHttpServletRequestBuilder search, Team team) throws Exception {
+        String etag = mockMvc.perform(search)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        MockHttpServletRequestBuilder conditional = search.header(HttpHeaders.IF_NONE_MATCH, etag);
+        mockMvc.perform(conditional)
+                .andExpect(status().isNotModified());
+
+        em.persist(new Member("etagChange", 20, team));
+        em.flush();
+
+        String changed = mockMvc.perform(conditional)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotNull().isNotEqualTo(etag);
+    }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 내보내기는 다른 스레드에서 실행되므로 데이터를 커밋해 두고 끝나면 지운다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberExportControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("exportTeam");
+            em.persist(team);
+            em.persist(new Member("export1", 10, team));
+            em.persist(new Member("export,2", 20, team));
+            em.persist(new Member("export\"3", 30, team));
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id in (select t.id from Team t where t.name = 'exportTeam')")
+                    .executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'exportTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("CSV export writes a header and every matching row")
+    void test1() throws Exception {
+        MvcResult started = mockMvc.perform(get("/v1/members/export")
+                        .param("teamName", "exportTeam")
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = Arrays.asList(body.split("\n"));
+        assertThat(lines.get(0)).isEqualTo("memberId,username,age,teamId,teamName");
+        assertThat(lines.subList(1, lines.size()))
+                .hasSize(3)
+                .anySatisfy(line -> assertThat(line).contains(",export1,10,").endsWith(",exportTeam"))
+                .anySatisfy(line -> assertThat(line).contains(",\"export,2\",20,"))
+                .anySatisfy(line -> assertThat(line).contains(",\"export\"\"3\",30,"));
+    }
+
+    @Test
+    @DisplayName("NDJSON export writes one member per line")
+    void test2() throws Exception {
+        MvcResult started = mockMvc.perform(get("/v1/members/export")
+                        .param("teamName", "exportTeam")
+                        .param("ageGoe", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> usernames = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode row = objectMapper.readTree(line);
+            assertThat(row.get("teamName").asText()).isEqualTo("exportTeam");
+            usernames.add(row.get("username").asText());
+        }
+        assertThat(usernames).containsExactlyInAnyOrder("export,2", "export\"3");
+    }
+
+    @Test
+    @DisplayName("Only the export request gets the long async timeout")
+    void test3() throws Exception {
+        MvcResult export = mockMvc.perform(get("/v1/members/export").param("teamName", "exportTeam"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(export.getRequest().getAsyncContext().getTimeout()).isEqualTo(10 * 60 * 1000L);
+        mockMvc.perform(asyncDispatch(export)).andExpect(status().isOk());
+
+        MvcResult search = mockMvc.perform(get("/v2/members/async").param("teamName", "exportTeam"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(search.getRequest().getAsyncContext().getTimeout()).isNotEqualTo(10 * 60 * 1000L);
+        mockMvc.perform(asyncDispatch(search)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class EntityChangeListenerTest {
+
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    Member member = new Member("listenerMember", 10);
+
+    @Test
+    @DisplayName("Entity changes are published while a consumer is enabled")
+    void test1() throws Exception {
+        new EntityChangeListener(publisher, "db", true).postPersist(member);
+        new EntityChangeListener(publisher, "index", false).postUpdate(member);
+
+        verify(publisher, times(2)).publishEvent(any(EntityChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Entity changes are not published without a consumer")
+    void test2() throws Exception {
+        EntityChangeListener listener = new EntityChangeListener(publisher, "db", false);
+        listener.postPersist(member);
+        listener.postUpdate(member);
+        listener.postRemove(member);
+
+        verify(publisher, never()).publishEvent(any(EntityChangedEvent.class));
+    }
+}
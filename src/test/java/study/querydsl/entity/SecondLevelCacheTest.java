@@ -0,0 +1,137 @@
+package study.querydsl.entity;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberSearchQueryCache;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 2차 캐시는 트랜잭션이 끝나야 채워지므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSearchQueryCache searchQueryCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    Statistics statistics;
+    Long memberId;
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        memberId = transactionTemplate.execute(status -> {
+            Team team = new Team("cacheTeam");
+            em.persist(team);
+            Member cacheMember = new Member("cacheMember", 10, team);
+            em.persist(cacheMember);
+            return cacheMember.getId();
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username = 'cacheMember'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'cacheTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("Repeated findById and team lookup issue no SQL")
+    void test1() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> memberJpaRepository.findById(memberId).get().getTeam().getName());
+
+        statistics.clear();
+        for (int i = 0; i < 3; i++) {
+            String teamName = transactionTemplate.execute(status ->
+                    memberJpaRepository.findById(memberId).get().getTeam().getName());
+            assertThat(teamName).isEqualTo("cacheTeam");
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Repeated page search is served from the query cache")
+    void test2() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeam");
+        searchQueryCache.fetch(condition, PageRequest.of(0, 10));
+
+        statistics.clear();
+        assertThat(searchQueryCache.fetch(condition, PageRequest.of(0, 10)))
+                .extracting("username").containsExactly("cacheMember");
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Bulk update invalidates cached entities and search results")
+    void test3() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeam");
+        transactionTemplate.executeWithoutResult(status -> memberJpaRepository.findById(memberId));
+        searchQueryCache.fetch(condition, PageRequest.of(0, 10));
+
+        transactionTemplate.executeWithoutResult(status -> queryFactory.update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.id.eq(memberId))
+                .execute());
+
+        int age = transactionTemplate.execute(status -> memberJpaRepository.findById(memberId).get().getAge());
+        assertThat(age).isEqualTo(11);
+        assertThat(searchQueryCache.fetch(condition, PageRequest.of(0, 10))).extracting("age").containsExactly(11);
+    }
+
+    @Test
+    @DisplayName("Unpaged search and count are not put in the query cache")
+    void test4() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeam");
+
+        statistics.clear();
+        memberJpaRepository.search(condition);
+        memberJpaRepository.search(condition);
+        searchQueryCache.fetchCount(condition);
+
+        assertThat(statistics.getQueryCachePutCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberBulkProgress;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * chunk 마다 별도 트랜잭션으로 커밋되므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("bulkTeam");
+            em.persist(team);
+            for (int i = 0; i < 25; i++) {
+                em.persist(new Member("bulkMember" + i, 10, team));
+            }
+        });
+        condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeam");
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'bulkMember%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'bulkTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("Bulk update in chunks reports progress")
+    void test1() throws Exception {
+        List<MemberBulkProgress> progress = new ArrayList<>();
+
+        MemberBulkProgress result = memberBulkRepository.bulkUpdateAge(condition, 1, 10, null, progress::add);
+
+        assertThat(result.getRows()).isEqualTo(25);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(progress).extracting("rows").containsExactly(10L, 20L, 25L);
+        assertThat(ages()).containsOnly(11);
+    }
+
+    @Test
+    @DisplayName("Failed bulk update resumes after the last committed chunk")
+    void test2() throws Exception {
+        MemberBulkException failure = catchThrowableOfType(() -> memberBulkRepository.bulkUpdateAge(condition, 1, 10, null,
+                progress -> {
+                    throw new IllegalStateException("stop after first chunk");
+                }), MemberBulkException.class);
+
+        assertThat(failure.getProgress().getRows()).isEqualTo(10);
+        MemberBulkProgress resumed = memberBulkRepository.bulkUpdateAge(condition, 1, 10,
+                failure.getProgress().getLastId(), progress -> {
+                });
+
+        assertThat(resumed.getRows()).isEqualTo(15);
+        assertThat(ages()).containsOnly(11);
+    }
+
+    @Test
+    @DisplayName("Bulk delete in chunks")
+    void test3() throws Exception {
+        condition.setAgeGoe(10);
+
+        MemberBulkProgress result = memberBulkRepository.bulkDelete(condition, 7);
+
+        assertThat(result.getRows()).isEqualTo(25);
+        assertThat(result.getChunks()).isEqualTo(4);
+        assertThat(ages()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Bulk update refuses to run inside a transaction")
+    void test4() throws Exception {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                memberBulkRepository.bulkUpdateAge(condition, 1, 10)))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("must not run inside a transaction");
+
+        assertThat(ages()).containsOnly(10);
+    }
+
+    private List<Integer> ages() {
+        return transactionTemplate.execute(status -> em
+                .createQuery("select m.age from Member m where m.username like 'bulkMember%'", Integer.class)
+                .getResultList());
+    }
+}
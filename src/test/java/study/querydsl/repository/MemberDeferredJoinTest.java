@@ -0,0 +1,91 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * deferred-join-offset 을 작게 두고 searchPageComplex 가 그 offset 부터 2단계 조회로 바뀌는지 본다.
+ */
+@SpringBootTest(properties = "querydsl.pagination.deferred-join-offset=2")
+@Transactional
+class MemberDeferredJoinTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @SpyBean
+    MemberSearchQueryCache searchQueryCache;
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    @BeforeEach
+    void beforeEach() {
+        Team team = new Team("deferredTeam");
+        em.persist(team);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("deferred" + i, i, team));
+        }
+        em.flush();
+        condition.setTeamName("deferredTeam");
+        clearInvocations(searchQueryCache);
+    }
+
+    @Test
+    @DisplayName("Pages before the offset use the single query")
+    void test1() throws Exception {
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2, Sort.by("age")));
+
+        assertThat(page.getContent()).extracting("username").containsExactly("deferred0", "deferred1");
+        verify(searchQueryCache).fetch(any(MemberSearchCondition.class), any(Pageable.class));
+        verify(searchQueryCache, never()).fetchDeferred(any(MemberSearchCondition.class), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Pages from the offset use the deferred join")
+    void test2() throws Exception {
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 2, Sort.by("age")));
+
+        assertThat(page.getContent()).extracting("username").containsExactly("deferred2", "deferred3");
+        assertThat(page.getContent()).extracting("teamName").containsOnly("deferredTeam");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        verify(searchQueryCache).fetchDeferred(any(MemberSearchCondition.class), any(Pageable.class));
+        verify(searchQueryCache, never()).fetch(any(MemberSearchCondition.class), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Columnar pages from the offset use the deferred join")
+    void test3() throws Exception {
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by("age"));
+
+        MemberColumns columns = memberRepository.searchColumns(condition, pageRequest);
+
+        assertThat(columns.toDtos()).isEqualTo(memberRepository.searchPageComplex(condition, pageRequest).getContent());
+        assertThat(columns.getTotalElements()).isEqualTo(5);
+        verify(searchQueryCache).fetchColumnsDeferred(any(MemberSearchCondition.class), any(Pageable.class));
+    }
+}
@@ -0,0 +1,110 @@
+package study.querydsl.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 16 가지 검색 조건 모양마다 search 가 실제로 실행하는 SQL 을 H2 에서 EXPLAIN 해
+ * 필터가 있는 모양이 member 를 테이블 스캔하지 않는지 확인한다.
+ */
+@SpringBootTest
+@Transactional
+class MemberIndexPlanTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchQueryCache searchQueryCache;
+
+    @BeforeEach
+    void beforeEach() {
+        for (int t = 0; t < 20; t++) {
+            Team team = new Team("planTeam" + t);
+            em.persist(team);
+            for (int i = 0; i < 50; i++) {
+                em.persist(new Member("planMember" + t + "_" + i, i, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("Every filtered search shape uses an index")
+    void test1() throws Exception {
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((shape & 1) != 0 ? "planMember3_7" : null);
+            condition.setTeamName((shape & 2) != 0 ? "planTeam3" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 40 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 45 : null);
+
+            String plan = explain(condition);
+            String shapeName = MemberSearchQueryCache.shapeName(condition);
+            if (shape == 0) {
+                assertThat(plan).as(shapeName).contains("PUBLIC.MEMBER.tableScan");
+            } else {
+                assertThat(plan).as(shapeName).doesNotContain("tableScan").contains("IDX_");
+            }
+        }
+    }
+
+    private String explain(MemberSearchCondition condition) {
+        String sql = toSql(searchQueryCache.jpql(condition));
+        List<Object> parameters = new ArrayList<>();
+        // 이름 있는 파라미터는 모양(Slot) 순서대로 한 번씩만 나온다.
+        addIfPresent(parameters, condition.getUsername());
+        addIfPresent(parameters, condition.getTeamName());
+        addIfPresent(parameters, condition.getAgeGoe());
+        addIfPresent(parameters, condition.getAgeLoe());
+
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+    }
+
+    private String toSql(String jpql) {
+        SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor) em.getEntityManagerFactory()
+                .unwrap(SessionFactory.class);
+        QueryTranslator translator = new ASTQueryTranslatorFactory()
+                .createQueryTranslator(jpql, jpql, Collections.emptyMap(), sessionFactory, null);
+        translator.compile(Collections.emptyMap(), false);
+        return translator.getSQLString();
+    }
+
+    private void addIfPresent(List<Object> parameters, Object value) {
+        if (value != null) {
+            parameters.add(value);
+        }
+    }
+}
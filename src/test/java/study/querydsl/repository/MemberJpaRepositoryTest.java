@@ -11,6 +11,7 @@ import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -89,4 +90,55 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Search for each test")
+    void test4() throws Exception {
+        Team streamTeam = new Team("streamTeam");
+        em.persist(streamTeam);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("streamMember" + i, i, streamTeam));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("streamTeam");
+        condition.setAgeLoe(4);
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        long count = memberJpaRepository.searchForEach(condition, 2, result::add);
+
+        assertThat(count).isEqualTo(5);
+        assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("streamMember0", "streamMember1", "streamMember2", "streamMember3", "streamMember4");
+        assertThat(result).extracting("teamName").containsOnly("streamTeam");
+        assertThat(result).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+    }
+
+    @Test
+    @DisplayName("Compiled search query test")
+    void test5() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((shape & 1) != 0 ? "member3" : null);
+            condition.setTeamName((shape & 2) != 0 ? "teamB" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 30 : null);
+
+            List<MemberTeamDto> expected = new ArrayList<>();
+            memberJpaRepository.searchForEach(condition, 100, expected::add);
+
+            assertThat(memberJpaRepository.search(condition)).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(memberJpaRepository.search(condition)).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(memberJpaRepository.searchByBuilder(condition)).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+}
@@ -1,5 +1,8 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -7,16 +10,33 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberColumnsCodec;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoProjection;
+import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.QTeam;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.Cursor;
+import study.querydsl.repository.support.CursorSlice;
+import study.querydsl.repository.support.RepositoryMetrics;
 
 import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static study.querydsl.entity.QMember.member;
 
 @SpringBootTest
@@ -29,6 +49,18 @@ class MemberRepositoryTest {
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private MemberCountCache countCache;
+
+    @Autowired
+    private MemberSearchQueryCache searchQueryCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MemberDataVersion dataVersion;
+
     @BeforeEach
     void beforeEach() {
         Team teamA = new Team("teamA");
@@ -97,4 +129,228 @@ class MemberRepositoryTest {
         result.forEach(System.out::println);
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Search slice by keyset test")
+    void test5() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        CursorSlice<MemberTeamDto> first = memberRepository.searchSlice(condition, Cursor.first("age"), 3);
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(first.hasPrevious()).isFalse();
+        assertThat(first.hasNext()).isTrue();
+
+        Cursor next = Cursor.decode(first.getNext().encode());
+        CursorSlice<MemberTeamDto> second = memberRepository.searchSlice(condition, next, 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.hasNext()).isFalse();
+
+        CursorSlice<MemberTeamDto> back = memberRepository.searchSlice(condition, second.getPrevious(), 3);
+        assertThat(back.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(back.hasPrevious()).isFalse();
+
+        Timer keyset = meterRegistry.find(RepositoryMetrics.SEARCH_TIMER)
+                .tag("method", "searchKeyset")
+                .timer();
+        assertThat(keyset).isNotNull();
+        assertThat(keyset.count()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Search page complex count cache test")
+    void test6() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        PageRequest pageRequest = PageRequest.of(0, 1);
+
+        long total = memberRepository.searchPageComplex(condition, pageRequest).getTotalElements();
+        long hitCount = countCache.stats().hitCount();
+
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(total);
+        assertThat(countCache.stats().hitCount()).isEqualTo(hitCount + 1);
+
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        memberRepository.save(new Member("member5", 50, teamA));
+
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(total + 1);
+    }
+
+    @Test
+    @DisplayName("Deferred join search test")
+    void test7() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(40);
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "age"));
+
+        List<MemberTeamDto> deferred = searchQueryCache.fetchDeferred(condition, pageRequest);
+
+        assertThat(deferred).isEqualTo(searchQueryCache.fetch(condition, pageRequest));
+        assertThat(deferred).extracting("username").containsExactly("member2", "member1");
+        assertThat(deferred).extracting("teamName").containsExactly("teamA", "teamA");
+    }
+
+    @Test
+    @DisplayName("Search metrics test")
+    void test8() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+
+        Timer timer = meterRegistry.find(RepositoryMetrics.SEARCH_TIMER)
+                .tag("method", "searchPageComplex")
+                .tag("shape", "teamName")
+                .tag("rows", "1-10")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Columnar search round trip test")
+    void test9() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(40);
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        MemberColumns columns = memberRepository.searchColumns(condition, pageRequest);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnsCodec.write(columns, out);
+        MemberColumns decoded = MemberColumnsCodec.read(new ByteArrayInputStream(out.toByteArray()));
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, pageRequest);
+        assertThat(decoded.toDtos()).isEqualTo(page.getContent());
+        assertThat(decoded.getTotalElements()).isEqualTo(page.getTotalElements());
+        assertThat(decoded.getTeamNames()).containsExactly("teamB", "teamA");
+    }
+
+    @Test
+    @DisplayName("Data version bumps on entity and bulk writes test")
+    void test10() throws Exception {
+        long initial = dataVersion.current();
+
+        memberRepository.save(new Member("member5", 50));
+        em.flush();
+        long afterSave = dataVersion.current();
+        assertThat(afterSave).isGreaterThan(initial);
+
+        new JPAQueryFactory(em).update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.eq("member5"))
+                .execute();
+        assertThat(dataVersion.current()).isGreaterThan(afterSave);
+    }
+
+    @Test
+    @DisplayName("Search slice without count query test")
+    void test11() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(40);
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3, Sort.by("age")));
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 3, Sort.by("age")));
+
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting("username").containsExactly("member4");
+        assertThat(last.hasNext()).isFalse();
+
+        Timer timer = meterRegistry.find(RepositoryMetrics.SEARCH_TIMER)
+                .tag("method", "searchSlice")
+                .tag("count", "true")
+                .timer();
+        assertThat(timer).isNull();
+    }
+
+    @Test
+    @DisplayName("Search batch test")
+    void test12() throws Exception {
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("teamA");
+        MemberSearchCondition overlapping = new MemberSearchCondition();
+        overlapping.setAgeGoe(20);
+        overlapping.setAgeLoe(30);
+        MemberSearchCondition byName = new MemberSearchCondition();
+        byName.setUsername("member4");
+        MemberSearchCondition none = new MemberSearchCondition();
+        none.setUsername("nobody");
+
+        List<MemberSearchCondition> conditions = Arrays.asList(teamA, overlapping, byName, none, teamA);
+        List<List<MemberTeamDto>> result = memberRepository.searchBatch(conditions);
+
+        assertThat(result).hasSize(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            assertThat(result.get(i)).containsExactlyInAnyOrderElementsOf(memberRepository.search(conditions.get(i)));
+        }
+        assertThat(result.get(0)).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.get(1)).extracting("username").containsExactly("member2", "member3");
+        assertThat(result.get(3)).isEmpty();
+        assertThat(memberRepository.searchBatch(Collections.emptyList())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Cache invalidation is registered once per transaction test")
+    void test13() throws Exception {
+        Team team = new Team("syncTeam");
+        em.persist(team);
+        em.persist(new Member("sync0", 0, team));
+        em.flush();
+        int registered = TransactionSynchronizationManager.getSynchronizations().size();
+
+        for (int i = 1; i <= 50; i++) {
+            em.persist(new Member("sync" + i, i, team));
+            em.flush();
+        }
+        new JPAQueryFactory(em).update(member).set(member.age, 1).where(member.team.eq(team)).execute();
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(registered);
+    }
+
+    @Test
+    @DisplayName("Columnar search follows the row search paging and sort test")
+    void test14() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "age"));
+
+        assertThat(memberRepository.searchPageSimple(condition, pageRequest).getContent())
+                .extracting("username").containsExactly("member4", "member3");
+        assertThat(memberRepository.searchColumns(condition, pageRequest).toDtos())
+                .isEqualTo(memberRepository.searchPageSimple(condition, pageRequest).getContent());
+
+        MemberColumns unpaged = memberRepository.searchColumns(condition, Pageable.unpaged());
+        assertThat(unpaged.isPaged()).isFalse();
+        assertThat(unpaged.getPageSize()).isEqualTo(MemberColumns.UNPAGED);
+        assertThat(unpaged.toDtos()).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+    }
+
+    @Test
+    @DisplayName("Generated projection returns the same rows as the Querydsl Q type test")
+    void test15() throws Exception {
+        em.persist(new Member("projectionNoTeam", 50));
+        em.flush();
+        em.clear();
+
+        QTeam teamAlias = new QTeam("projectionTeam");
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        List<MemberTeamDto> generated = queryFactory
+                .select(new MemberTeamDtoProjection(member.id, member.username, member.age, teamAlias.id, teamAlias.name))
+                .from(member)
+                .leftJoin(member.team, teamAlias)
+                .orderBy(member.id.asc())
+                .fetch();
+        List<MemberTeamDto> reflective = queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, teamAlias.id, teamAlias.name))
+                .from(member)
+                .leftJoin(member.team, teamAlias)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(generated).isNotEmpty().isEqualTo(reflective);
+        assertThat(generated).filteredOn("username", "projectionNoTeam")
+                .extracting("teamId", "teamName")
+                .containsExactly(tuple(null, null));
+    }
+}
@@ -0,0 +1,142 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.config.ReplicaRoutingContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.SearchCoalescer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 합치기는 트랜잭션 밖의 호출에만 적용되므로 @Transactional 없이 여러 스레드에서 호출한다.
+ */
+@SpringBootTest
+class MemberSearchCoalescingTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @SpyBean
+    MemberSearchQueryCache searchQueryCache;
+
+    @Test
+    @DisplayName("Concurrent identical searches share one query execution")
+    void test1() throws Exception {
+        int callers = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(searchQueryCache).fetch(any(MemberSearchCondition.class), any(Sort.class), anyLong(), anyInt());
+
+        double coalescedBefore = coalesced();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Page<MemberTeamDto>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                // 호출마다 새 조건/페이지 객체를 넘겨 값으로 합쳐지는지 본다.
+                results.add(executor.submit(() -> memberRepository.searchPageSimple(condition(), PageRequest.of(0, 10))));
+            }
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (coalesced() - coalescedBefore < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(coalesced() - coalescedBefore).isEqualTo(callers - 1);
+            release.countDown();
+
+            Page<MemberTeamDto> first = results.get(0).get(10, SECONDS);
+            for (Future<Page<MemberTeamDto>> result : results) {
+                assertThat(result.get(10, SECONDS)).isSameAs(first);
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        verify(searchQueryCache, times(1)).fetch(any(MemberSearchCondition.class), any(Sort.class), anyLong(), anyInt());
+        verify(searchQueryCache, times(1)).fetchCount(any(MemberSearchCondition.class));
+
+        // 끝난 실행의 결과는 남겨 두지 않는다.
+        memberRepository.searchPageSimple(condition(), PageRequest.of(0, 10));
+        verify(searchQueryCache, times(2)).fetch(any(MemberSearchCondition.class), any(Sort.class), anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("A caller that wrote in this request runs its own search")
+    void test2() throws Exception {
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return invocation.callRealMethod();
+        }).when(searchQueryCache).fetch(any(MemberSearchCondition.class), any(Sort.class), anyLong(), anyInt());
+
+        double coalescedBefore = coalesced();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Page<MemberTeamDto>> reader = executor.submit(() ->
+                    memberRepository.searchPageSimple(condition(), PageRequest.of(0, 10)));
+            Future<Page<MemberTeamDto>> writer = executor.submit(() -> {
+                // 쓰기 뒤의 읽기는 replica 지연 동안 primary 로 가야 하므로 다른 호출의 결과를 나눠 받으면 안 된다.
+                ReplicaRoutingContext.markWrite();
+                try {
+                    return memberRepository.searchPageSimple(condition(), PageRequest.of(0, 10));
+                } finally {
+                    ReplicaRoutingContext.clear();
+                }
+            });
+
+            // 두 호출이 모두 자기 쿼리에 들어와야 풀린다.
+            assertThat(entered.await(10, SECONDS)).isTrue();
+            release.countDown();
+            reader.get(10, SECONDS);
+            writer.get(10, SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(coalesced()).isEqualTo(coalescedBefore);
+    }
+
+    private MemberSearchCondition condition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("coalesceTeam");
+        condition.setUsername("");
+        return condition;
+    }
+
+    private double coalesced() {
+        Counter counter = meterRegistry.find(SearchCoalescer.COALESCED).tag("method", "searchPageSimple").counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,202 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.EntityChangedEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 인덱스는 커밋된 변경만 반영하므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ * 커밋 직후의 결과를 DB 와 비교하도록 등록된 인덱스는 변경이 있으면 바로 다시 만든다.
+ */
+@SpringBootTest(properties = {"querydsl.search.source=index", "querydsl.search.index-rebuild-interval=0ms"})
+class MemberSearchIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchIndex searchIndex;
+
+    @Autowired
+    MemberSearchQueryCache searchQueryCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("indexTeamA");
+            Team teamB = new Team("indexTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 20; i++) {
+                Team team = i % 5 == 0 ? null : i % 2 == 0 ? teamA : teamB;
+                em.persist(new Member("indexMember" + i % 7, 10 + i, team));
+            }
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'indexMember%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'indexTeam%'").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("Index and database return the same members for every condition shape")
+    void test1() throws Exception {
+        assertThat(searchIndex.size()).isGreaterThanOrEqualTo(20);
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Index follows entity changes and bulk updates")
+    void test2() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = queryFactory.selectFrom(team).where(team.name.eq("indexTeamA")).fetchOne();
+            Member moved = queryFactory.selectFrom(member)
+                    .where(member.username.like("indexMember%"), member.age.eq(11))
+                    .fetchOne();
+            moved.changeTeam(teamA);
+            moved.setAge(99);
+            teamA.setName("indexTeamRenamed");
+            em.remove(queryFactory.selectFrom(member)
+                    .where(member.username.like("indexMember%"), member.age.eq(12))
+                    .fetchOne());
+        });
+        assertConsistent();
+
+        transactionTemplate.executeWithoutResult(status -> queryFactory.update(member)
+                .set(member.age, member.age.add(5))
+                .where(member.username.like("indexMember%"))
+                .execute());
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Concurrent searches after a bulk update reload the index once")
+    void test3() throws Exception {
+        searchIndex.size();
+        transactionTemplate.executeWithoutResult(status -> queryFactory.update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.like("indexMember%"))
+                .execute());
+        long loadsBefore = searchIndex.loads();
+
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> sizes = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                sizes.add(executor.submit(() -> {
+                    start.await();
+                    return searchIndex.size();
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> size : sizes) {
+                assertThat(size.get(10, SECONDS)).isGreaterThanOrEqualTo(20);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(searchIndex.loads() - loadsBefore).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Interleaved writes and reads rebuild the index at most once per interval")
+    void test4() throws Exception {
+        List<Member> members = transactionTemplate.execute(status -> queryFactory.selectFrom(member)
+                .where(member.username.like("indexMember%"))
+                .fetch());
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(5000);
+
+        MemberSearchIndex immediate = new MemberSearchIndex(queryFactory, transactionManager, Duration.ZERO);
+        MemberSearchIndex throttled = new MemberSearchIndex(queryFactory, transactionManager, Duration.ofHours(1));
+        MemberSearchIndex delayed = new MemberSearchIndex(queryFactory, transactionManager, Duration.ofMillis(100));
+        for (MemberSearchIndex index : Arrays.asList(immediate, throttled, delayed)) {
+            index.load();
+            assertThat(index.search(condition)).isEmpty();
+        }
+        long immediateBuilds = immediate.builds();
+        long throttledBuilds = throttled.builds();
+
+        // 트랜잭션 밖에서 받은 변경은 커밋된 것으로 보고 바로 반영한다.
+        for (int i = 0; i < members.size(); i++) {
+            Member changed = members.get(i);
+            changed.setAge(5000 + i);
+            EntityChangedEvent event = new EntityChangedEvent(changed, EntityChangedEvent.Type.UPDATE);
+            immediate.onEntityChanged(event);
+            throttled.onEntityChanged(event);
+
+            assertThat(immediate.search(condition)).hasSize(i + 1);
+            assertThat(throttled.search(condition)).isEmpty();
+        }
+        assertThat(immediate.builds() - immediateBuilds).isEqualTo(members.size());
+        assertThat(throttled.builds()).isEqualTo(throttledBuilds);
+
+        // 간격이 지나면 쌓인 변경을 한 번에 반영한다.
+        delayed.onEntityChanged(new EntityChangedEvent(members.get(0), EntityChangedEvent.Type.UPDATE));
+        Thread.sleep(150);
+        assertThat(delayed.search(condition)).extracting("memberId").containsExactly(members.get(0).getId());
+    }
+
+    private void assertConsistent() {
+        for (String teamName : new String[]{"indexTeamA", "indexTeamRenamed"}) {
+            for (int shape = 0; shape < 16; shape++) {
+                MemberSearchCondition condition = new MemberSearchCondition();
+                condition.setUsername((shape & 1) != 0 ? "indexMember3" : null);
+                condition.setTeamName((shape & 2) != 0 ? teamName : null);
+                condition.setAgeGoe((shape & 4) != 0 ? 14 : null);
+                condition.setAgeLoe((shape & 8) != 0 ? 25 : null);
+
+                List<MemberTeamDto> fromDatabase = transactionTemplate.execute(status -> searchQueryCache.fetch(condition));
+                List<MemberTeamDto> fromIndex = memberRepository.search(condition);
+
+                assertThat(fromIndex).as(MemberSearchQueryCache.shapeName(condition))
+                        .containsExactlyInAnyOrderElementsOf(fromDatabase);
+            }
+        }
+    }
+}
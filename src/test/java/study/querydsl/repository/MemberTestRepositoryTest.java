@@ -0,0 +1,136 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountQueryExecutor;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 동시 실행되는 count 쿼리는 별도 트랜잭션에서 실행되므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("concurrentTeam");
+            em.persist(team);
+            for (int i = 0; i < 30; i++) {
+                em.persist(new Member("concurrentMember" + i, 1000 + i, team));
+            }
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'concurrentMember%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'concurrentTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("Concurrent content and count query")
+    void test1() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(1000);
+        PageRequest pageRequest = PageRequest.of(1, 10);
+
+        Page<Member> sequential = memberTestRepository.applyPagination2(condition, pageRequest);
+        Page<Member> concurrent = memberTestRepository.applyPaginationConcurrently(condition, pageRequest);
+
+        assertThat(concurrent.getTotalElements()).isEqualTo(sequential.getTotalElements()).isEqualTo(30);
+        assertThat(concurrent.getContent()).extracting("id")
+                .containsExactlyElementsOf(sequential.map(Member::getId).getContent());
+    }
+
+    @Test
+    @DisplayName("Count query is skipped for the last page")
+    void test2() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(1020);
+        // 첫 실행의 쿼리 컴파일 시간이 count-delay 를 넘지 않도록 한 번 실행해 둔다.
+        memberTestRepository.applyPaginationConcurrently(condition, PageRequest.of(0, 20));
+        double executions = countExecutions();
+
+        Page<Member> result = memberTestRepository.applyPaginationConcurrently(condition, PageRequest.of(0, 20));
+
+        assertThat(result.getContent()).hasSize(10);
+        assertThat(result.getTotalElements()).isEqualTo(10);
+        assertThat(countExecutions()).isEqualTo(executions);
+    }
+
+    @Test
+    @DisplayName("Count query runs once for a full page")
+    void test3() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(1000);
+        double executions = countExecutions();
+
+        Page<Member> result = memberTestRepository.applyPaginationConcurrently(condition, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).hasSize(10);
+        assertThat(result.getTotalElements()).isEqualTo(30);
+        assertThat(countExecutions()).isEqualTo(executions + 1);
+    }
+
+    @Test
+    @DisplayName("Concurrent pagination filters by team name like searchPageComplex")
+    void test4() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("concurrentTeam");
+        condition.setAgeGoe(1005);
+        PageRequest pageRequest = PageRequest.of(1, 10, Sort.by("age"));
+
+        Page<Member> concurrent = memberTestRepository.applyPaginationConcurrently(condition, pageRequest);
+        Page<MemberTeamDto> complex = transactionTemplate.execute(
+                status -> memberRepository.searchPageComplex(condition, pageRequest));
+
+        assertThat(concurrent.getTotalElements()).isEqualTo(complex.getTotalElements()).isEqualTo(25);
+        assertThat(concurrent.getContent()).extracting("id")
+                .containsExactlyElementsOf(complex.map(MemberTeamDto::getMemberId).getContent());
+    }
+
+    private double countExecutions() {
+        return meterRegistry.find(CountQueryExecutor.EXECUTIONS).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {"querydsl.warmup.enabled=true", "querydsl.warmup.iterations=1"})
+class SearchWarmupTest {
+
+    @Autowired
+    ApplicationAvailability availability;
+
+    @Autowired
+    ReadinessRecorder readinessRecorder;
+
+    @Test
+    @DisplayName("Warm-up runs every condition shape before the application is ready")
+    void test1() {
+        assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+
+        Map<String, Long> warmedWhenReady = readinessRecorder.warmedWhenReady;
+        assertThat(warmedWhenReady).hasSize(16)
+                .containsKeys("none", "username", "teamName+ageGoe", "username+teamName+ageGoe+ageLoe");
+    }
+
+    @Test
+    @DisplayName("A failed warm-up fails startup")
+    void test2() throws Exception {
+        MemberRepository memberRepository = mock(MemberRepository.class);
+        when(memberRepository.searchColumns(any(MemberSearchCondition.class), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("columns broken"));
+        SearchWarmup searchWarmup = new SearchWarmup(memberRepository, mock(TeamRepository.class),
+                mock(MemberSearchQueryCache.class), mock(PlatformTransactionManager.class), 1, 1000);
+
+        assertThatThrownBy(() -> searchWarmup.run(null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("16 of 16");
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        ReadinessRecorder readinessRecorder(ApplicationContext context) {
+            return new ReadinessRecorder(context);
+        }
+    }
+
+    /**
+     * ACCEPTING_TRAFFIC 가 발행되는 순간 warm-up 이 이미 끝났는지 기록한다.
+     */
+    static class ReadinessRecorder {
+
+        private final ApplicationContext context;
+        private volatile Map<String, Long> warmedWhenReady;
+
+        ReadinessRecorder(ApplicationContext context) {
+            this.context = context;
+        }
+
+        @EventListener
+        public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                warmedWhenReady = context.getBean(SearchWarmup.class).lastWarmed();
+            }
+        }
+    }
+}
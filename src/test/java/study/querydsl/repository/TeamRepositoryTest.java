@@ -0,0 +1,110 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private Team teamA;
+    private Team teamB;
+    private Team teamC;
+
+    @BeforeEach
+    void beforeEach() {
+        teamA = new Team("teamRepoA");
+        teamB = new Team("teamRepoB");
+        teamC = new Team("teamRepoC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("Find teams with members by ids")
+    void test1() throws Exception {
+        List<TeamMembersDto> result = teamRepository.findTeamsWithMembers(
+                Arrays.asList(teamA.getId(), teamB.getId(), teamC.getId()));
+
+        assertThat(result).extracting("teamName").containsExactly("teamRepoA", "teamRepoB", "teamRepoC");
+        assertThat(result.get(0).getMembers()).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.get(1).getMembers()).extracting("username").containsExactly("member3", "member4");
+        assertThat(result.get(2).getMembers()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Find teams with members by condition and page")
+    void test2() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamRepoB");
+        condition.setAgeGoe(40);
+
+        Page<TeamMembersDto> result = teamRepository.findTeamsWithMembers(condition,
+                PageRequest.of(0, 1, Sort.by("name")));
+
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamRepoB");
+        assertThat(result.getContent().get(0).getMembers()).extracting("username").containsExactly("member4");
+    }
+
+    @Test
+    @DisplayName("Find teams with members without N+1")
+    void test3() throws Exception {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        List<Long> teamIds = Arrays.asList(teamA.getId(), teamB.getId(), teamC.getId());
+
+        statistics.clear();
+        List<TeamMembersDto> result = teamRepository.findTeamsWithMembers(teamIds);
+        result.forEach(teamMembers -> teamMembers.getMembers().size());
+
+        // 팀 수와 무관하게 팀 1번, 회원 1번
+        assertThat(result).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamRepoA");
+        statistics.clear();
+        Page<TeamMembersDto> page = teamRepository.findTeamsWithMembers(condition, PageRequest.of(0, 1));
+
+        // 팀, count, 회원
+        assertThat(page.getContent().get(0).getMembers()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
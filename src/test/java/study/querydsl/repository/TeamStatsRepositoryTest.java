@@ -0,0 +1,254 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 통계는 커밋 직전에 반영되므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class TeamStatsRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @Autowired
+    TeamStatsReconciler reconciler;
+
+    @Autowired
+    TeamStatsMaintainer maintainer;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("statsMember1", 10, teamA));
+            em.persist(new Member("statsMember2", 20, teamA));
+            em.persist(new Member("statsMember3", 30, teamB));
+            em.persist(new Member("statsMember4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            maintainer.recomputeOnCommit(queryFactory.select(team.id).from(team).where(team.name.like("statsTeam%")).fetch());
+            em.createQuery("delete from Member m where m.username like 'statsMember%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'statsTeam%'").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("Stats of new teams and members")
+    void test1() throws Exception {
+        TeamStatsDto teamA = stats("statsTeamA");
+        assertThat(teamA.getMemberCount()).isEqualTo(2);
+        assertThat(teamA.getAverageAge()).isEqualTo(15);
+        assertThat(teamA.getMinAge()).isEqualTo(10);
+        assertThat(teamA.getMaxAge()).isEqualTo(20);
+
+        assertThat(teamStatsRepository.findById(teamA.getTeamId())).isPresent();
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Stats follow updates, changeTeam, removes and bulk updates")
+    void test2() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = findMember("statsMember1");
+            member1.setAge(5);
+            findMember("statsMember2").changeTeam(findTeam("statsTeamB"));
+            findMember("statsMember3").setUsername("statsMember3renamed");
+        });
+        assertThat(stats("statsTeamA").getMemberCount()).isEqualTo(1);
+        assertThat(stats("statsTeamA").getMaxAge()).isEqualTo(5);
+        assertThat(stats("statsTeamB").getMemberCount()).isEqualTo(3);
+        assertThat(stats("statsTeamB").getMinAge()).isEqualTo(20);
+        assertConsistent();
+
+        transactionTemplate.executeWithoutResult(status -> em.remove(findMember("statsMember4")));
+        assertThat(stats("statsTeamB").getMaxAge()).isEqualTo(30);
+        assertConsistent();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            maintainer.recomputeOnCommit(queryFactory.select(team.id).from(team).where(team.name.like("statsTeam%")).fetch());
+            queryFactory.update(member)
+                    .set(member.age, member.age.add(1))
+                    .where(member.username.like("statsMember%"))
+                    .execute();
+        });
+        assertThat(stats("statsTeamB").getAverageAge()).isEqualTo(26);
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Reconciliation repairs stats changed behind its back")
+    void test3() throws Exception {
+        Long teamId = stats("statsTeamA").getTeamId();
+        transactionTemplate.executeWithoutResult(status -> em
+                .createNativeQuery("update team_stats set member_count = 99 where team_id = ?")
+                .setParameter(1, teamId)
+                .executeUpdate());
+
+        assertThat(reconciler.reconcile()).contains(teamId);
+        assertThat(stats("statsTeamA").getMemberCount()).isEqualTo(2);
+        assertThat(reconciler.reconcile()).doesNotContain(teamId);
+    }
+
+    @Test
+    @DisplayName("Bulk updates recompute only the teams they declare")
+    void test4() throws Exception {
+        Long teamA = stats("statsTeamA").getTeamId();
+        corrupt(stats("statsTeamB").getTeamId());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            maintainer.recomputeOnCommit(Collections.singletonList(teamA));
+            queryFactory.update(member)
+                    .set(member.age, member.age.add(10))
+                    .where(member.team.id.eq(teamA))
+                    .execute();
+        });
+
+        assertThat(stats("statsTeamA").getMaxAge()).isEqualTo(30);
+        assertThat(stats("statsTeamA").getAverageAge()).isEqualTo(25);
+        // 전체를 다시 계산하지 않았으므로 다른 팀의 틀린 통계는 그대로다.
+        assertThat(stats("statsTeamB").getMemberCount()).isEqualTo(99);
+    }
+
+    @Test
+    @DisplayName("Chunked bulk updates keep the stats of their teams")
+    void test5() throws Exception {
+        corrupt(stats("statsTeamB").getTeamId());
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("statsTeamA");
+
+        memberBulkRepository.bulkUpdateAge(condition, 5, 1);
+
+        assertThat(stats("statsTeamA").getMinAge()).isEqualTo(15);
+        assertThat(stats("statsTeamA").getMaxAge()).isEqualTo(25);
+        assertThat(stats("statsTeamB").getMemberCount()).isEqualTo(99);
+    }
+
+    @Test
+    @DisplayName("First members added concurrently to a team without stats both commit")
+    void test6() throws Exception {
+        Long teamId = transactionTemplate.execute(status -> {
+            Team teamC = new Team("statsTeamC");
+            em.persist(teamC);
+            return teamC.getId();
+        });
+        // 통계 도입 전 팀처럼 통계 행을 지운다.
+        transactionTemplate.executeWithoutResult(status -> em
+                .createNativeQuery("delete from team_stats where team_id = ?")
+                .setParameter(1, teamId)
+                .executeUpdate());
+
+        // 다른 트랜잭션이 첫 통계 행을 넣고 커밋하기 전에, 회원을 추가하는 쪽도 행이 없다고 보고 INSERT 하게 한다.
+        CountDownLatch inserted = new CountDownLatch(1);
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            em.createNativeQuery("insert into team_stats (team_id, member_count, age_sum) values (?, 0, 0)")
+                    .setParameter(1, teamId)
+                    .executeUpdate();
+            inserted.countDown();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // 기본 키 중복으로 롤백되지 않고, 먼저 커밋된 행에 증분을 더한다.
+        transactionTemplate.executeWithoutResult(status ->
+                em.persist(new Member("statsMember5", 50, em.find(Team.class, teamId))));
+        other.get(10, TimeUnit.SECONDS);
+
+        TeamStatsDto teamC = stats("statsTeamC");
+        assertThat(teamC.getMemberCount()).isEqualTo(1);
+        assertThat(teamC.getMinAge()).isEqualTo(50);
+        assertThat(teamC.getMaxAge()).isEqualTo(50);
+        assertConsistent();
+    }
+
+    private void corrupt(Long teamId) {
+        transactionTemplate.executeWithoutResult(status -> em
+                .createNativeQuery("update team_stats set member_count = 99 where team_id = ?")
+                .setParameter(1, teamId)
+                .executeUpdate());
+    }
+
+    private TeamStatsDto stats(String teamName) {
+        List<TeamStatsDto> result = transactionTemplate.execute(status -> teamStatsRepository.findStatsByTeamName(teamName));
+        assertThat(result).hasSize(1);
+        return result.get(0);
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member).where(member.username.eq(username)).fetchOne();
+    }
+
+    private Team findTeam(String name) {
+        return queryFactory.selectFrom(team).where(team.name.eq(name)).fetchOne();
+    }
+
+    /**
+     * groupBy 집계와 통계 테이블이 같은지
+     */
+    private void assertConsistent() {
+        List<Tuple> actual = transactionTemplate.execute(status -> queryFactory
+                .select(team.name, member.count(), member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(team.name.like("statsTeam%"))
+                .groupBy(team.name)
+                .fetch());
+
+        for (Tuple row : actual) {
+            TeamStatsDto stats = stats(row.get(team.name));
+            assertThat(stats.getMemberCount()).isEqualTo(row.get(member.count()));
+            assertThat(stats.getMinAge()).isEqualTo(row.get(member.age.min()));
+            assertThat(stats.getMaxAge()).isEqualTo(row.get(member.age.max()));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class CountQueryExecutorTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CountQueryExecutor executor;
+    CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("A slow content query lets the count start on a worker")
+    void test1() throws Exception {
+        executor = executor(Duration.ZERO, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<String> thread = new AtomicReference<>();
+
+        CountQueryExecutor.PendingCount pending = executor.submit(() -> {
+            thread.set(Thread.currentThread().getName());
+            started.countDown();
+            return 42;
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(pending.await()).isEqualTo(42);
+        assertThat(thread.get()).startsWith("count-query-");
+        assertThat(executions("worker")).isEqualTo(1);
+        assertThat(executions("caller")).isZero();
+    }
+
+    @Test
+    @DisplayName("A count needed before the delay runs on the caller")
+    void test2() throws Exception {
+        executor = executor(Duration.ofMinutes(1), Duration.ofSeconds(5));
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        CountQueryExecutor.PendingCount pending = executor.submit(() -> {
+            thread.set(Thread.currentThread());
+            return 7;
+        });
+
+        assertThat(pending.await()).isEqualTo(7);
+        assertThat(thread.get()).isSameAs(Thread.currentThread());
+        assertThat(executions("caller")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A count cancelled before the delay never runs")
+    void test3() throws Exception {
+        executor = executor(Duration.ofMillis(50), Duration.ofSeconds(5));
+        AtomicInteger runs = new AtomicInteger();
+
+        executor.submit(() -> runs.incrementAndGet()).cancel();
+        Thread.sleep(200);
+
+        assertThat(runs.get()).isZero();
+        assertThat(executions("worker") + executions("caller")).isZero();
+    }
+
+    @Test
+    @DisplayName("Waiting for a running count is bounded")
+    void test4() throws Exception {
+        executor = executor(Duration.ZERO, Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+
+        CountQueryExecutor.PendingCount pending = executor.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(pending::await).isInstanceOf(QueryTimeoutException.class);
+    }
+
+    private CountQueryExecutor executor(Duration delay, Duration timeout) {
+        return new CountQueryExecutor(mock(PlatformTransactionManager.class), registry, 1, 1, delay, timeout);
+    }
+
+    private double executions(String thread) {
+        return registry.get(CountQueryExecutor.EXECUTIONS).tag("thread", thread).counter().count();
+    }
+}
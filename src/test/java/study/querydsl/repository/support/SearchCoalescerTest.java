@@ -0,0 +1,49 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCoalescerTest {
+
+    @Test
+    @DisplayName("Waiting for a coalesced search is bounded")
+    void test1() throws Exception {
+        SearchCoalescer coalescer = new SearchCoalescer(new SimpleMeterRegistry(), true, Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = executor.submit(() -> coalescer.execute("search", "key", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "leader";
+            }));
+            assertThat(started.await(10, SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> coalescer.execute("search", "key", () -> "follower"))
+                    .isInstanceOf(QueryTimeoutException.class);
+
+            release.countDown();
+            assertThat(leader.get(10, SECONDS)).isEqualTo("leader");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+class MemberImportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberImportService memberImportService;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    @Transactional
+    @DisplayName("Import csv")
+    void test1() throws Exception {
+        String csv = "username,age,teamName\n" +
+                "importMember1,10,importTeamA\n" +
+                "\"import,Member2\",20,importTeamA\n" +
+                "importMember3,30,\n";
+
+        MemberImportResult result = memberImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getRows()).isEqualTo(3);
+
+        List<Member> members = em.createQuery("select m from Member m left join fetch m.team" +
+                        " where m.username like 'import%' order by m.age", Member.class)
+                .getResultList();
+        assertThat(members).extracting("username")
+                .containsExactly("importMember1", "import,Member2", "importMember3");
+        assertThat(members.get(0).getTeam().getName()).isEqualTo("importTeamA");
+        assertThat(members.get(1).getTeam()).isSameAs(members.get(0).getTeam());
+        assertThat(members.get(2).getTeam()).isNull();
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("Import ndjson")
+    void test2() throws Exception {
+        String ndjson = "{\"username\":\"importMember1\",\"age\":10,\"teamName\":\"importTeamB\"}\n" +
+                "{\"username\":\"importMember2\",\"age\":20,\"teamName\":\"importTeamB\"}\n";
+
+        MemberImportResult result = memberImportService.importNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(result.getChunks()).isEqualTo(1);
+    }
+
+    /**
+     * chunk 마다 커밋되는지 보려면 바깥 트랜잭션이 없어야 하므로 직접 만든 데이터를 끝에 지운다.
+     */
+    @Test
+    @DisplayName("Each chunk is committed on its own")
+    void test3() throws Exception {
+        MemberImportService service = new MemberImportService(em, queryFactory, transactionManager, objectMapper, 2);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String csv = "username,age,teamName\n" +
+                "chunkMember1,10,chunkTeam\n" +
+                "chunkMember2,20,chunkTeam\n" +
+                "chunkMember3,30,chunkTeam\n" +
+                "chunkMember4,40,\n" +
+                "chunkMember5,not a number,chunkTeam\n";
+
+        try {
+            MemberImportException failure = catchThrowableOfType(
+                    () -> service.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))),
+                    MemberImportException.class);
+            assertThat(failure.getLine()).isEqualTo(6);
+            assertThat(failure.getCommittedRows()).isEqualTo(4);
+            assertThat(failure.isMalformedRow()).isTrue();
+            assertThat(failure).hasCauseInstanceOf(NumberFormatException.class);
+
+            // 실패한 행 앞의 두 chunk 는 이미 커밋되어 있다.
+            List<String> committed = transactionTemplate.execute(status -> queryFactory
+                    .select(member.username)
+                    .from(member)
+                    .where(member.username.startsWith("chunkMember"))
+                    .orderBy(member.username.asc())
+                    .fetch());
+            assertThat(committed).containsExactly("chunkMember1", "chunkMember2", "chunkMember3", "chunkMember4");
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                queryFactory.delete(member).where(member.username.startsWith("chunkMember")).execute();
+                queryFactory.delete(team).where(team.name.eq("chunkTeam")).execute();
+            });
+        }
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("A csv without header keeps its first row")
+    void test4() throws Exception {
+        String csv = "Username1,10,headerlessTeam\n" +
+                "username2,20,headerlessTeam\n";
+
+        MemberImportResult result = memberImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getRows()).isEqualTo(2);
+        List<String> usernames = queryFactory
+                .select(member.username)
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("headerlessTeam"))
+                .orderBy(member.age.asc())
+                .fetch();
+        assertThat(usernames).containsExactly("Username1", "username2");
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("A csv header is skipped regardless of case and surrounding spaces")
+    void test5() throws Exception {
+        String csv = " USERNAME,Age,TeamName \n" +
+                "headerMember1,10,headerTeam\n";
+
+        MemberImportResult result = memberImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getRows()).isEqualTo(1);
+    }
+}